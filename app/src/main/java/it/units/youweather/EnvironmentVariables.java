@@ -32,6 +32,55 @@ public class EnvironmentVariables {
      */
     public static final int FIREBASE_EMULATOR_REALTIME_DB_PORT = 9000;
 
+    /**
+     * Size (in degrees of latitude and longitude) of the cells of the grid
+     * to which coordinates are snapped when caching forecasts: forecasts
+     * for coordinates in the same cell are considered the same.
+     */
+    public static final double FORECAST_CACHE_GRID_DEGREES = 0.01;  // about 1 km
+
+    /**
+     * Time (milliseconds) after which a cached forecast expires
+     * (OpenWeather updates data about every 10 minutes).
+     */
+    public static final long FORECAST_CACHE_TTL_MILLIS = 10 * 60 * 1_000;
+
+    /**
+     * Precision (number of characters of the geohash) of the cells in which
+     * coordinates are grouped when caching the reverse geocoding: coordinates
+     * in the same cell are resolved into the same cities.
+     */
+    public static final int REVERSE_GEOCODING_GEOHASH_PRECISION = 6;   // cells of about 1.2 km x 0.6 km
+
+    /**
+     * The maximum number of entries for the reverse geocoding cache.
+     */
+    public static final int REVERSE_GEOCODING_CACHE_MAX_ENTRIES = 500;
+
+    /**
+     * The maximum distance (kilometers) of a city of the bundled gazetteer from
+     * some coordinates for resolving the coordinates into that city offline.
+     */
+    public static final double GAZETTEER_MAX_DISTANCE_KM = 10;
+
+    /**
+     * The maximum number of queries whose results are kept in the forward geocoding cache.
+     */
+    public static final int FORWARD_GEOCODING_CACHE_MAX_ENTRIES = 200;
+
+    /**
+     * The maximum number of cities provided when a query is answered by
+     * the local index of cities (instead of the cached results).
+     */
+    public static final int FORWARD_GEOCODING_MAX_LOCAL_RESULTS = 10;
+
+    /**
+     * Period (milliseconds) at which the changes to the entities observed by the
+     * database (see {@link it.units.youweather.utils.storage.DBEntity#markChanged(String, Object)})
+     * are written to the database.
+     */
+    public static final long DB_SYNCHRONIZATION_PERIOD_MILLIS = 60 * 1_000;
+
     /**
      * Temperature measure unit.
      */
@@ -3,25 +3,19 @@ package it.units.youweather.entities;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.firebase.database.Exclude;
 
 import java.io.Serializable;
-import java.util.Calendar;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-
-import it.units.youweather.R;
-import it.units.youweather.entities.forecast_fields.Coordinates;
-import it.units.youweather.utils.LocationHelper;
-import it.units.youweather.utils.ResourceHelper;
+
+import it.units.youweather.utils.DayRolloverScheduler;
+import it.units.youweather.utils.SolarCalculator;
 import it.units.youweather.utils.Timing;
+import it.units.youweather.utils.storage.DBEntityCodec;
 
 /**
  * Class representing a city, with its information, used for
@@ -29,7 +23,7 @@ import it.units.youweather.utils.Timing;
  *
  * @author Matteo Ferfoglia
  */
-@SuppressWarnings({"unused", "BusyWait"}) // methods used for de/serialization
+@SuppressWarnings("unused") // methods used for de/serialization
 public class City implements Serializable {
     private static final String TAG = City.class.getSimpleName();
 
@@ -41,148 +35,106 @@ public class City implements Serializable {
     private volatile String state;
 
     /**
-     * Saves the sunrise time for today in this{@link City}.
-     * Initialized to {@link Timing#epochTimeInvalidInitialization}
-     * to recognize if it has not been computed yet.
-     * Time is in seconds.
+     * The sunrise and sunset times for the current local solar day, lazily
+     * computed (see {@link #getSunriseAndSunsetForToday()}), or null if
+     * they have to be computed again.
      */
-    private final transient AtomicLong todaySunrise =
-            new AtomicLong(Timing.epochTimeInvalidInitialization);
+    private transient volatile SolarCalculator.SunriseAndSunset sunriseAndSunset = null;
 
     /**
-     * Like {@link #todaySunrise}, but for the sunset.
+     * Resets {@link #sunriseAndSunset} at midnight, or null if not created yet.
+     * It is created and registered to the {@link DayRolloverScheduler} when the
+     * sunrise and sunset times are computed for the first time, so that instances
+     * whose times are never used (e.g., most of the cities deserialized from a
+     * geocoding response) cost nothing. It is a field, because the scheduler
+     * holds a weak reference to it, which must be reachable as long as this instance is.
      */
-    private final transient AtomicLong todaySunset =
-            new AtomicLong(Timing.epochTimeInvalidInitialization);
+    private transient DayRolloverScheduler.DayRolloverListener dayRolloverListener = null;
+
+    private City() {
+    }
 
     /**
-     * Scheduler to reset {@link #todaySunrise} and {@link #todaySunrise}
-     * when the midnight is reached.
+     * Restores an instance from its representation as a tree of {@link Map}s
+     * (see {@link DBEntityCodec}). Missing fields keep their default values.
+     *
+     * @param tree The representation of the instance, having field names as keys.
+     * @return the restored instance.
      */
-    private final transient ScheduledExecutorService sunriseAndSunsetResetScheduler;
+    @NonNull
+    public static City fromMap(@NonNull Map<String, Object> tree) {
+        City city = new City();
+        city.name = DBEntityCodec.getString(tree, "name");
+        city.local_names = DBEntityCodec.getStringMap(tree, "local_names");
+        city.lat = DBEntityCodec.getDouble(tree, "lat");
+        city.lon = DBEntityCodec.getDouble(tree, "lon");
+        city.country = DBEntityCodec.getString(tree, "country");
+        city.state = DBEntityCodec.getString(tree, "state");
+        return city;
+    }
 
     /**
-     * Mutex used to wait for the sunrise and the sunset times to be set.
+     * Constructor.
+     *
+     * @param name        The (locale-independent) name of the city.
+     * @param local_names The {@link Map} of the local names of the city (languages as keys).
+     * @param lat         The latitude of the city.
+     * @param lon         The longitude of the city.
+     * @param country     The country of the city.
+     * @param state       The state of the city (may be null).
      */
-    private final transient AtomicBoolean sunriseAndSunsetTimesForCityAreSet =
-            new AtomicBoolean(false);
-
-    private City() {
-
-        new Thread(this::setSunriseAndSunsetTimesForToday).start();
-
-        sunriseAndSunsetResetScheduler = Executors.newScheduledThreadPool(1);
-        {
-            // Schedules a thread to reset sunrise and sunset time at midnight
-
-            Calendar lastMidnight = Calendar.getInstance();
-            lastMidnight.set(Calendar.HOUR_OF_DAY, 0);
-            lastMidnight.set(Calendar.MINUTE, 0);
-            lastMidnight.set(Calendar.SECOND, 0);
-            lastMidnight.set(Calendar.MILLISECOND, 0);
-
-            Calendar nextMidnight = Calendar.getInstance();
-            nextMidnight.setTime(lastMidnight.getTime());
-            nextMidnight.add(Calendar.DATE, 1);
-
-            final int SECONDS_TO_MILLISECONDS_CONVERSION_FACTOR = 1_000;
-            final long secondsSinceMidnight = (Timing.getMillisSinceEpoch() - lastMidnight.getTimeInMillis()) / SECONDS_TO_MILLISECONDS_CONVERSION_FACTOR;
-            final long secondsToMidnight = (nextMidnight.getTimeInMillis() - Timing.getMillisSinceEpoch()) / SECONDS_TO_MILLISECONDS_CONVERSION_FACTOR;
-            final long SECONDS_IN_A_DAY = 3600 * 24;
-
-            Log.d(TAG, "Since midnight: " + secondsSinceMidnight
-                    + " s, to next midnight: " + secondsToMidnight);
-
-            sunriseAndSunsetResetScheduler.scheduleAtFixedRate(
-                    this::setSunriseAndSunsetTimesForToday,
-                    secondsToMidnight, SECONDS_IN_A_DAY, TimeUnit.SECONDS);
-        }
-
+    public City(@NonNull String name, @NonNull Map<String, String> local_names,
+                double lat, double lon, @NonNull String country, @Nullable String state) {
+        this();
+        this.name = Objects.requireNonNull(name);
+        this.local_names = Objects.requireNonNull(local_names);
+        this.lat = lat;
+        this.lon = lon;
+        this.country = Objects.requireNonNull(country);
+        this.state = state;
     }
 
     /**
-     * @return the sunrise time for today, in seconds, since UNIX epoch, UTC,
-     * or {@link Timing#epochTimeInvalidInitialization} in case of invalid initialization.
+     * @return the sunrise time for today, in seconds, since UNIX epoch, UTC.
+     * During the polar day, it is the beginning of the day (solar midnight),
+     * during the polar night, it is the solar noon (like the sunset).
+     * See {@link SolarCalculator#compute(double, double, long)}.
      */
     public long getSunriseUTCTimeInSecondsSinceEpochOrInvalidInitialization() {
-        waitForSunriseAndSunsetToBeSet();
-        return todaySunrise.get();
-    }
-
-    private void waitForSunriseAndSunsetToBeSet() {
-        final int RETRY_PERIOD_MILLIS = 10;
-        while (!sunriseAndSunsetTimesForCityAreSet.get()) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Interrupted", e);
-            }
-        }
+        return getSunriseAndSunsetForToday().getSunriseSecondsSinceEpoch();
     }
 
-    private void setSunriseAndSunsetTimesForToday() {
-        final long START_TIME_MILLIS = Timing.getMillisSinceEpoch();
-        final long DELAY_BETWEEN_ATTEMPTS_MILLIS = 10;
-        final long MAX_TOTAL_DELAY_FOR_ATTEMPTS_MILLIS = 15_000;
-        final long END_TIME_ATTEMPTS_MILLIS = START_TIME_MILLIS + MAX_TOTAL_DELAY_FOR_ATTEMPTS_MILLIS;
-
-        boolean coordinatesAreSet = false;
-
-        while (Timing.getMillisSinceEpoch() < END_TIME_ATTEMPTS_MILLIS && !coordinatesAreSet) {
-            if (lat >= 0 && lon >= 0) {
-                coordinatesAreSet = true;
-            } else {
-                try {
-                    Thread.sleep(DELAY_BETWEEN_ATTEMPTS_MILLIS);
-                } catch (InterruptedException e) {
-                    Log.e(TAG, "Interrupted thread", e);
-                    break;
-                }
-            }
-        }
-
-        if (!coordinatesAreSet) {
-            Log.e(TAG, ResourceHelper.getResString(R.string.unable_to_set_sunrise_and_sunset_coordinates_for_city));
-        }
-
-        LocationHelper.getForecastForCoordinates(
-                new Coordinates(lat, lon),
-                forecast -> {
-                    todaySunrise.set(forecast.getSunriseUTCTimeInSecondsSinceEpoch());
-                    todaySunset.set(forecast.getSunsetUTCTimeInSecondsSinceEpoch());
-
-                    sunriseAndSunsetTimesForCityAreSet.set(true);
-                },
-                e -> {
-                    Log.e(TAG, "Unable to get sunset and sunrise times, set to "
-                            + Timing.epochTimeInvalidInitialization, e);
-
-                    todaySunrise.set(Timing.epochTimeInvalidInitialization);
-                    todaySunset.set(Timing.epochTimeInvalidInitialization);
-
-                    sunriseAndSunsetTimesForCityAreSet.set(true);
-                });
-
-        while (!sunriseAndSunsetTimesForCityAreSet.get()) {
-            try {
-                Thread.sleep(DELAY_BETWEEN_ATTEMPTS_MILLIS);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Interrupted", e);
-            }
-        }
+    /**
+     * @return the sunset time for today, in seconds, since UNIX epoch, UTC.
+     * During the polar day, it is the end of the day (next solar midnight),
+     * during the polar night, it is the solar noon (like the sunrise).
+     * See {@link SolarCalculator#compute(double, double, long)}.
+     */
+    public long getSunsetUTCTimeInSecondsSinceEpochOrInvalidInitialization() {
+        return getSunriseAndSunsetForToday().getSunsetSecondsSinceEpoch();
     }
 
     /**
-     * @return the sunset time for today, in seconds, since UNIX epoch, UTC,
-     * or {@link Timing#epochTimeInvalidInitialization} in case of invalid initialization.
+     * @return the sunrise and sunset times for the current local solar day at this
+     * {@link City}, computed locally the first time they are requested in the day.
      */
-    public long getSunsetUTCTimeInSecondsSinceEpochOrInvalidInitialization() {
-        waitForSunriseAndSunsetToBeSet();
-        return todaySunset.get();
+    @NonNull
+    private SolarCalculator.SunriseAndSunset getSunriseAndSunsetForToday() {
+        final long today = SolarCalculator.getLocalSolarDay(lon, Timing.getMillisSinceEpoch());
+        SolarCalculator.SunriseAndSunset sunriseAndSunsetForToday = sunriseAndSunset;
+        if (sunriseAndSunsetForToday == null || sunriseAndSunsetForToday.getLocalSolarDay() != today) {
+            sunriseAndSunsetForToday = SolarCalculator.compute(lat, lon, today);
+            sunriseAndSunset = sunriseAndSunsetForToday;
+            registerForDayRolloverIfNotDoneYet();
+        }
+        return sunriseAndSunsetForToday;
     }
 
-    protected void finalize() {
-        sunriseAndSunsetResetScheduler.shutdownNow();
+    private synchronized void registerForDayRolloverIfNotDoneYet() {
+        if (dayRolloverListener == null) {
+            dayRolloverListener = () -> sunriseAndSunset = null;
+            DayRolloverScheduler.register(dayRolloverListener);
+        }
     }
 
     /**
@@ -232,6 +184,7 @@ public class City implements Serializable {
 
     public void setLat(double lat) {
         this.lat = lat;
+        this.sunriseAndSunset = null;
     }
 
     public double getLon() {
@@ -240,6 +193,7 @@ public class City implements Serializable {
 
     public void setLon(double lon) {
         this.lon = lon;
+        this.sunriseAndSunset = null;
     }
 
     public String getCountry() {
@@ -5,6 +5,9 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import java.io.Serializable;
+import java.util.Map;
+
+import it.units.youweather.utils.storage.DBEntityCodec;
 
 /**
  * @author Matteo Ferfoglia
@@ -19,6 +22,21 @@ public class Coordinates implements Serializable {
     private Coordinates() {
     }
 
+    /**
+     * Restores an instance from its representation as a tree of {@link Map}s
+     * (see {@link DBEntityCodec}). Missing fields keep their default values.
+     *
+     * @param tree The representation of the instance, having field names as keys.
+     * @return the restored instance.
+     */
+    @NonNull
+    public static Coordinates fromMap(@NonNull Map<String, Object> tree) {
+        Coordinates coordinates = new Coordinates();
+        coordinates.lat = DBEntityCodec.getDouble(tree, "lat");
+        coordinates.lon = DBEntityCodec.getDouble(tree, "lon");
+        return coordinates;
+    }
+
     public Coordinates(double latitude, double longitude) {
         final double MAX_ABS_LAT_VALUE = 90d;    // the maximum valid absolute value for latitude  (it must be in [-90,+90])
         final double MAX_ABS_LON_VALUE = 180d;   // the maximum valid absolute value for longitude (it must be in [-180,+180])
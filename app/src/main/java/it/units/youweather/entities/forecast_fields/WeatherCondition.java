@@ -9,7 +9,6 @@ import com.google.firebase.database.Exclude;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -26,6 +25,7 @@ import it.units.youweather.utils.ResourceHelper;
 import it.units.youweather.utils.Timing;
 import it.units.youweather.utils.functionals.Predicate;
 import it.units.youweather.utils.functionals.Supplier;
+import it.units.youweather.utils.storage.DBEntityCodec;
 
 /**
  * @author Matteo Ferfoglia
@@ -79,6 +79,18 @@ public class WeatherCondition implements Serializable {
         return weatherConditionsDescriptionsList;
     }
 
+    /**
+     * @return the {@link Set} with the URLs of the icons of all weather conditions.
+     */
+    @NonNull
+    public static Set<String> getIconUrls() {
+        Set<String> iconUrls = new HashSet<>();
+        for (WeatherCondition w : weatherConditions.values()) {
+            iconUrls.add(w.getIconUrl());
+        }
+        return iconUrls;
+    }
+
     /**
      * @param description The index of the description. The description must be
      *                    valid, i.e., it must be present in the {@link List}
@@ -331,34 +343,8 @@ public class WeatherCondition implements Serializable {
     private static boolean isDay(@NonNull City city) {
         final int SECONDS_TO_MILLIS_FACTOR = 1_000;
         final long currentSecondsSinceEpoch = Timing.getMillisSinceEpoch() / SECONDS_TO_MILLIS_FACTOR;
-        long sunriseAtCityInSecondsSinceEpoch = city.getSunriseUTCTimeInSecondsSinceEpochOrInvalidInitialization();
-        long sunsetAtCityInSecondsSinceEpoch = city.getSunsetUTCTimeInSecondsSinceEpochOrInvalidInitialization();
-
-        if (sunriseAtCityInSecondsSinceEpoch == Timing.epochTimeInvalidInitialization
-                || sunsetAtCityInSecondsSinceEpoch == Timing.epochTimeInvalidInitialization) {  // unknown sunrise or sunset time
-
-            // Set canonical times for sunset and sunrise
-
-            long millisFromEpochTo8am, millisFromEpochTo8pm;
-            {
-                Calendar eightAMOfToday = Calendar.getInstance();
-                eightAMOfToday.set(Calendar.HOUR, 8);
-                eightAMOfToday.set(Calendar.MINUTE, 0);
-                eightAMOfToday.set(Calendar.SECOND, 0);
-                eightAMOfToday.set(Calendar.MILLISECOND, 0);
-
-                Calendar eightPMOfToday = Calendar.getInstance();
-                eightPMOfToday.setTime(eightAMOfToday.getTime());
-                eightPMOfToday.add(Calendar.HOUR, 12);
-
-                millisFromEpochTo8am = eightAMOfToday.getTimeInMillis();
-                millisFromEpochTo8pm = eightPMOfToday.getTimeInMillis();
-            }
-
-            sunriseAtCityInSecondsSinceEpoch = millisFromEpochTo8am / SECONDS_TO_MILLIS_FACTOR;
-            sunsetAtCityInSecondsSinceEpoch = millisFromEpochTo8pm / SECONDS_TO_MILLIS_FACTOR;
-
-        }
+        final long sunriseAtCityInSecondsSinceEpoch = city.getSunriseUTCTimeInSecondsSinceEpochOrInvalidInitialization();
+        final long sunsetAtCityInSecondsSinceEpoch = city.getSunsetUTCTimeInSecondsSinceEpochOrInvalidInitialization();
 
         return sunriseAtCityInSecondsSinceEpoch <= currentSecondsSinceEpoch
                 && currentSecondsSinceEpoch <= sunsetAtCityInSecondsSinceEpoch;
@@ -367,6 +353,23 @@ public class WeatherCondition implements Serializable {
     private WeatherCondition() {
     }
 
+    /**
+     * Restores an instance from its representation as a tree of {@link Map}s
+     * (see {@link DBEntityCodec}). Missing fields keep their default values.
+     *
+     * @param tree The representation of the instance, having field names as keys.
+     * @return the restored instance.
+     */
+    @NonNull
+    public static WeatherCondition fromMap(@NonNull Map<String, Object> tree) {
+        WeatherCondition weatherCondition = new WeatherCondition();
+        weatherCondition.id = DBEntityCodec.getInt(tree, "id");
+        weatherCondition.main = DBEntityCodec.getString(tree, "main");
+        weatherCondition.description = DBEntityCodec.getString(tree, "description");
+        weatherCondition.icon = DBEntityCodec.getString(tree, "icon");
+        return weatherCondition;
+    }
+
     private WeatherCondition(
             int id, @NonNull WeatherMain main, int descriptionId, @NonNull String iconId) {
         this.id = id;
@@ -3,6 +3,7 @@ package it.units.youweather.entities.storage;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Map;
 import java.util.Objects;
 
 import it.units.youweather.entities.City;
@@ -12,6 +13,7 @@ import it.units.youweather.entities.forecast_fields.WeatherCondition;
 import it.units.youweather.utils.ImagesHelper;
 import it.units.youweather.utils.Timing;
 import it.units.youweather.utils.storage.DBEntity;
+import it.units.youweather.utils.storage.DBEntityCodec;
 
 /**
  * This class is a weather report that can be created by the user.
@@ -43,9 +45,25 @@ public class WeatherReport extends DBEntity {
 
     /**
      * The {@link ImagesHelper.SerializableBitmap photo} taken by the user for this report.
+     * This field is kept for reports saved before the introduction of {@link #pictureKey}:
+     * new reports save their picture separately, as {@link WeatherReportPicture}.
      */
     private volatile ImagesHelper.SerializableBitmap picture;
 
+    /**
+     * The key on the database of the {@link WeatherReportPicture} with the photo
+     * taken by the user for this report (at {@link ImagesHelper.Rendition#FULL full}
+     * resolution), or null if no photo was taken.
+     */
+    private volatile String pictureKey;
+
+    /**
+     * Like {@link #pictureKey}, but for the {@link ImagesHelper.Rendition#MEDIUM medium}
+     * rendition of the photo. It is null for reports saved before the introduction of
+     * {@link ImagesHelper.Rendition renditions}.
+     */
+    private volatile String mediumPictureKey;
+
     /**
      * The property returned by {@link LoggedInUser#getUserId()} of the {@link LoggedInUser}
      * that made this report.
@@ -57,6 +75,30 @@ public class WeatherReport extends DBEntity {
      */
     private static final String TAG = WeatherReport.class.getSimpleName();
 
+    static {
+        DBEntityCodec.register(WeatherReport.class, new DBEntityCodec<WeatherReport>() {
+            @NonNull
+            @Override
+            protected WeatherReport decodeFields(@NonNull Map<String, Object> tuple) {
+                Map<String, Object> city = getMap(tuple, "city");
+                Map<String, Object> coordinates = getMap(tuple, "coordinates");
+                Map<String, Object> weatherCondition = getMap(tuple, "weatherCondition");
+                Map<String, Object> picture = getMap(tuple, "picture");
+
+                WeatherReport weatherReport = new WeatherReport();
+                weatherReport.city = city == null ? null : City.fromMap(city);
+                weatherReport.coordinates = coordinates == null ? null : Coordinates.fromMap(coordinates);
+                weatherReport.weatherCondition = weatherCondition == null ? null : WeatherCondition.fromMap(weatherCondition);
+                weatherReport.millisecondsSinceEpoch = getLong(tuple, "millisecondsSinceEpoch");
+                weatherReport.picture = picture == null ? null : ImagesHelper.SerializableBitmap.fromMap(picture);
+                weatherReport.pictureKey = getString(tuple, "pictureKey");
+                weatherReport.mediumPictureKey = getString(tuple, "mediumPictureKey");
+                weatherReport.reporterUserId = getString(tuple, "reporterUserId");
+                return weatherReport;
+            }
+        });
+    }
+
     /**
      * Creates a new instance of this class.
      *
@@ -66,27 +108,32 @@ public class WeatherReport extends DBEntity {
      * @param coordinates      The {@link Coordinates} (more precise than the
      *                         {@link City}) to which this instance refers to.
      * @param weatherCondition The {@link WeatherCondition} for this instance.
-     * @param picture          The {@link ImagesHelper.SerializableBitmap photo} for this instance.
+     * @param pictureKey       The key on the database of the {@link WeatherReportPicture}
+     *                         with the photo for this instance, or null if no photo is available.
+     * @param mediumPictureKey Like pictureKey, but for the {@link ImagesHelper.Rendition#MEDIUM}
+     *                         rendition of the photo.
      */
     public WeatherReport(@NonNull String reporterUserId,
                          @NonNull City city, @NonNull Coordinates coordinates,
-                         @NonNull WeatherCondition weatherCondition, @Nullable ImagesHelper.SerializableBitmap picture) {
+                         @NonNull WeatherCondition weatherCondition,
+                         @Nullable String pictureKey, @Nullable String mediumPictureKey) {
         this();
         this.reporterUserId = Objects.requireNonNull(reporterUserId);
         this.city = Objects.requireNonNull(city);
         this.coordinates = Objects.requireNonNull(coordinates);
         this.weatherCondition = Objects.requireNonNull(weatherCondition);
-        this.picture = picture;
+        this.pictureKey = pictureKey;
+        this.mediumPictureKey = mediumPictureKey;
         this.millisecondsSinceEpoch = Timing.getMillisSinceEpoch();
     }
 
     /**
-     * See parameter descriptions in {@link #WeatherReport(String, City, Coordinates, WeatherCondition, ImagesHelper.SerializableBitmap)}.
+     * See parameter descriptions in {@link #WeatherReport(String, City, Coordinates, WeatherCondition, String, String)}.
      */
     public WeatherReport(@NonNull String reporterUserId,
                          @NonNull City city, @NonNull Coordinates coordinates,
                          @NonNull WeatherCondition weatherCondition) {
-        this(reporterUserId, city, coordinates, weatherCondition, null);
+        this(reporterUserId, city, coordinates, weatherCondition, null, null);
     }
 
     private WeatherReport() {
@@ -105,10 +152,23 @@ public class WeatherReport extends DBEntity {
         return weatherCondition;
     }
 
+    /**
+     * @return the {@link ImagesHelper.SerializableBitmap photo} embedded in this
+     * instance (only for reports saved before the introduction of {@link #pictureKey}),
+     * or null.
+     */
     public ImagesHelper.SerializableBitmap getPicture() {
         return picture;
     }
 
+    public String getPictureKey() {
+        return pictureKey;
+    }
+
+    public String getMediumPictureKey() {
+        return mediumPictureKey;
+    }
+
     public long getMillisecondsSinceEpoch() {
         return millisecondsSinceEpoch;
     }
@@ -145,11 +205,13 @@ public class WeatherReport extends DBEntity {
                 && Objects.equals(city, that.city)
                 && Objects.equals(coordinates, that.coordinates)
                 && Objects.equals(weatherCondition, that.weatherCondition)
-                && Objects.equals(picture, that.picture);
+                && Objects.equals(picture, that.picture)
+                && Objects.equals(pictureKey, that.pictureKey)
+                && Objects.equals(mediumPictureKey, that.mediumPictureKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(city, coordinates, weatherCondition, millisecondsSinceEpoch, picture);
+        return Objects.hash(city, coordinates, weatherCondition, millisecondsSinceEpoch, picture, pictureKey, mediumPictureKey);
     }
 }
@@ -0,0 +1,80 @@
+package it.units.youweather.entities.storage;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+import java.util.Objects;
+
+import it.units.youweather.utils.ImagesHelper;
+import it.units.youweather.utils.storage.DBEntity;
+import it.units.youweather.utils.storage.DBEntityCodec;
+
+/**
+ * This class contains the picture of a {@link WeatherReport}.
+ * Pictures are saved in the database separately from the
+ * {@link WeatherReport} they belong to, which only saves the
+ * key of the instance of this class: this is done to avoid
+ * downloading the picture when only the other fields of the
+ * {@link WeatherReport} are needed.
+ *
+ * @author Matteo Ferfoglia
+ */
+public class WeatherReportPicture extends DBEntity {
+
+    static {
+        DBEntityCodec.register(WeatherReportPicture.class, new DBEntityCodec<WeatherReportPicture>() {
+            @NonNull
+            @Override
+            protected WeatherReportPicture decodeFields(@NonNull Map<String, Object> tuple) {
+                Map<String, Object> picture = getMap(tuple, "picture");
+
+                WeatherReportPicture weatherReportPicture = new WeatherReportPicture();
+                weatherReportPicture.picture = picture == null ? null : ImagesHelper.SerializableBitmap.fromMap(picture);
+                return weatherReportPicture;
+            }
+        });
+    }
+
+    /**
+     * The {@link ImagesHelper.SerializableBitmap picture}.
+     */
+    private volatile ImagesHelper.SerializableBitmap picture;
+
+    private WeatherReportPicture() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param picture The {@link ImagesHelper.SerializableBitmap picture} for this instance.
+     */
+    public WeatherReportPicture(@NonNull ImagesHelper.SerializableBitmap picture) {
+        this();
+        this.picture = Objects.requireNonNull(picture);
+    }
+
+    public ImagesHelper.SerializableBitmap getPicture() {
+        return picture;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WeatherReportPicture{id=" + getId() + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WeatherReportPicture that = (WeatherReportPicture) o;
+        return Objects.equals(getId(), that.getId())
+                && Objects.equals(picture, that.picture);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId(), picture);
+    }
+}
@@ -3,6 +3,7 @@ package it.units.youweather.entities.storage;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.firebase.database.Exclude;
 
@@ -16,8 +17,10 @@ import it.units.youweather.entities.City;
 import it.units.youweather.entities.LoggedInUser;
 import it.units.youweather.entities.forecast_fields.Coordinates;
 import it.units.youweather.entities.forecast_fields.WeatherCondition;
+import it.units.youweather.utils.ImagesHelper;
 import it.units.youweather.utils.Timing;
 import it.units.youweather.utils.storage.DBEntity;
+import it.units.youweather.utils.storage.DBEntityCodec;
 import it.units.youweather.utils.storage.Query;
 
 /**
@@ -36,6 +39,31 @@ public class WeatherReportPreview extends DBEntity {
      * TAG for the logger.
      */
     private static final String TAG = WeatherReportPreview.class.getSimpleName();
+
+    static {
+        DBEntityCodec.register(WeatherReportPreview.class, new DBEntityCodec<WeatherReportPreview>() {
+            @NonNull
+            @Override
+            protected WeatherReportPreview decodeFields(@NonNull Map<String, Object> tuple) {
+                Map<String, Object> coordinates = getMap(tuple, "coordinates");
+                Map<String, Object> weatherCondition = getMap(tuple, "weatherCondition");
+                Map<String, Object> thumbnail = getMap(tuple, "thumbnail");
+
+                WeatherReportPreview weatherReportPreview = new WeatherReportPreview();
+                weatherReportPreview.weatherReportDetailsKey = getString(tuple, "weatherReportDetailsKey");
+                weatherReportPreview.localeLocationNames = getStringMap(tuple, "localeLocationNames");
+                weatherReportPreview.locationDefaultName = getString(tuple, "locationDefaultName");
+                weatherReportPreview.reporterUserId = getString(tuple, "reporterUserId");
+                weatherReportPreview.reportedTimeMillisSinceEpoch = getLong(tuple, "reportedTimeMillisSinceEpoch");
+                weatherReportPreview.location_time = getString(tuple, "location_time");
+                weatherReportPreview.coordinates = coordinates == null ? null : Coordinates.fromMap(coordinates);
+                weatherReportPreview.weatherCondition = weatherCondition == null ? null : WeatherCondition.fromMap(weatherCondition);
+                weatherReportPreview.thumbnail = thumbnail == null ? null : ImagesHelper.SerializableBitmap.fromMap(thumbnail);
+                return weatherReportPreview;
+            }
+        });
+    }
+
     /**
      * The key on the database for the tuple containing the details
      * (i.e., the actual {@link WeatherReport}) associated with this
@@ -83,11 +111,32 @@ public class WeatherReportPreview extends DBEntity {
      */
     private volatile WeatherCondition weatherCondition;
 
+    /**
+     * The {@link ImagesHelper.Rendition#THUMBNAIL thumbnail} of the photo of the
+     * report, or null if no photo is available. It is small enough to be saved
+     * directly in this instance.
+     */
+    private volatile ImagesHelper.SerializableBitmap thumbnail;
+
     private WeatherReportPreview() {
         super();
     }
 
     public WeatherReportPreview(@NonNull String weatherReportDetailsKey, @NonNull WeatherReport weatherReport) {
+        this(weatherReportDetailsKey, weatherReport, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param weatherReportDetailsKey The key on the database of the given {@link WeatherReport}.
+     * @param weatherReport           The {@link WeatherReport} for which the preview is created.
+     * @param thumbnail               The {@link ImagesHelper.Rendition#THUMBNAIL thumbnail} of
+     *                                the photo of the report, or null if no photo is available.
+     */
+    public WeatherReportPreview(@NonNull String weatherReportDetailsKey,
+                                @NonNull WeatherReport weatherReport,
+                                @Nullable ImagesHelper.SerializableBitmap thumbnail) {
         this();
         this.weatherReportDetailsKey = Objects.requireNonNull(weatherReportDetailsKey);
         Objects.requireNonNull(weatherReport);
@@ -98,6 +147,7 @@ public class WeatherReportPreview extends DBEntity {
         this.weatherCondition = weatherReport.getWeatherCondition();
         this.coordinates = weatherReport.getCoordinates();
         this.location_time = mergeCityAndTimeIntoSingleValue(weatherReport.getCity(), reportedTimeMillisSinceEpoch);
+        this.thumbnail = thumbnail;
     }
 
     public String getLocation_time() {
@@ -137,6 +187,10 @@ public class WeatherReportPreview extends DBEntity {
         return locationDefaultName;
     }
 
+    public ImagesHelper.SerializableBitmap getThumbnail() {
+        return thumbnail;
+    }
+
     /**
      * Create a {@link Query} whose expected results (after evaluation) are all
      * the instances of this class, reported by the {@link LoggedInUser} whose
@@ -201,13 +255,14 @@ public class WeatherReportPreview extends DBEntity {
                 && Objects.equals(reporterUserId, that.reporterUserId)
                 && Objects.equals(location_time, that.location_time)
                 && Objects.equals(weatherCondition, that.weatherCondition)
-                && Objects.equals(coordinates, that.coordinates);
+                && Objects.equals(coordinates, that.coordinates)
+                && Objects.equals(thumbnail, that.thumbnail);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(
                 weatherReportDetailsKey, localeLocationNames, reporterUserId,
-                reportedTimeMillisSinceEpoch, location_time, weatherCondition, coordinates);
+                reportedTimeMillisSinceEpoch, location_time, weatherCondition, coordinates, thumbnail);
     }
 }
@@ -15,6 +15,7 @@ import java.util.Objects;
 import it.units.youweather.R;
 import it.units.youweather.databinding.ActivityMainBinding;
 import it.units.youweather.utils.ResourceHelper;
+import it.units.youweather.utils.WeatherIconRepository;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -25,6 +26,7 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
 
         ResourceHelper.initialize(this);
+        WeatherIconRepository.prefetchAll();
 
         ActivityMainBinding viewBinding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(viewBinding.getRoot());
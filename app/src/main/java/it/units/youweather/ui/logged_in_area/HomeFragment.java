@@ -5,6 +5,9 @@ import android.app.Activity;
 import android.content.Intent;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -36,6 +39,7 @@ import it.units.youweather.entities.forecast_fields.Coordinates;
 import it.units.youweather.entities.storage.WeatherReport;
 import it.units.youweather.entities.storage.WeatherReportPreview;
 import it.units.youweather.ui.LoginActivity;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.LocationHelper;
 import it.units.youweather.utils.PermissionsHelper;
 import it.units.youweather.utils.ResourceHelper;
@@ -64,6 +68,37 @@ public class HomeFragment extends Fragment {
     private Location userLocation = null;
     private Stoppable locationListener;
 
+    /**
+     * Delay (milliseconds) after the last change of the query in the search
+     * bar before searching the matching cities (autocompletion).
+     */
+    private static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * The minimum length of the query in the search bar for the autocompletion.
+     */
+    private static final int MIN_QUERY_LENGTH_FOR_AUTOCOMPLETE = 2;
+
+    /**
+     * {@link Handler} to delay the searches (on the main thread).
+     */
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The search waiting for the debounce delay, if any.
+     */
+    private Runnable pendingSearch = null;
+
+    /**
+     * The {@link CancellationSignal} for the search in progress, if any.
+     */
+    private CancellationSignal currentSearchCancellationSignal = null;
+
+    /**
+     * The sequence number of the latest search (accessed from the main thread only).
+     */
+    private int currentSearchSequenceNumber = 0;
+
     /**
      * Signs the user out.
      */
@@ -93,6 +128,13 @@ public class HomeFragment extends Fragment {
         return viewBinding.getRoot();
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        cancelSearch();
+        currentSearchSequenceNumber++;  // results of previous searches must not be shown anymore
+    }
+
     @Override
     public void onStop() {
         super.onStop();
@@ -113,39 +155,19 @@ public class HomeFragment extends Fragment {
         viewBinding.searchBar.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                AtomicBoolean anyErrorsRetrievingCity = new AtomicBoolean(false);
-                LocationHelper.getCitiesFromNameAndConsume(
-                        query,
-                        cities -> {
-                            LocationsAdapter cityNamesArrayAdapter = new LocationsAdapter(
-                                    cities,
-                                    viewBinding.searchBarResults,
-                                    viewBinding.searchBar,
-                                    selectedCity -> hideAppIconAndShowWeatherReports(selectedCity));
-                            Utility.runOnUiThread(
-                                    getActivity(),
-                                    () -> {
-                                        viewBinding.searchBarResults.setAdapter(cityNamesArrayAdapter);
-                                        recyclerView.setVisibility(View.VISIBLE);
-                                    }
-                            );
-                            Log.d(TAG, "Cities matching the query: " + Arrays.toString(cities));
-
-                            if (cities.length == 0 && !anyErrorsRetrievingCity.get()) {
-                                final String errorMsg = ResourceHelper.getResString(R.string.no_results);
-                                Toast.makeText(requireContext().getApplicationContext(), errorMsg, Toast.LENGTH_LONG)
-                                        .show();
-                            }
-                        },
-                        errorMsgIdRes -> {
-                            Toast.makeText(requireContext().getApplicationContext(), errorMsgIdRes, Toast.LENGTH_LONG).show();
-                            anyErrorsRetrievingCity.set(true);
-                        });
+                searchCities(query, true);
                 return false;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                cancelSearch();
+                if (newText.trim().length() >= MIN_QUERY_LENGTH_FOR_AUTOCOMPLETE) {
+                    pendingSearch = () -> searchCities(newText, false);
+                    searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MILLIS);
+                } else {
+                    recyclerView.setVisibility(View.GONE);
+                }
                 return false;
             }
         });
@@ -165,7 +187,7 @@ public class HomeFragment extends Fragment {
         }
 
         viewBinding.useCurrentPositionButton.setOnClickListener(view_ ->
-                new Thread(() -> {
+                Dispatchers.io().execute(() -> {
                     AtomicBoolean anyErrorRetrievingLocation = new AtomicBoolean(false);
                     City[] citiesForCurrentUserPosition = userLocation == null
                             ? new City[0]
@@ -187,11 +209,81 @@ public class HomeFragment extends Fragment {
                                     .show();
                         }
                     }
-                }).start());
+                }));
         viewBinding.authButton.setOnClickListener(_view -> signOut());
 
     }
 
+    /**
+     * Searches the cities matching the given query and shows them in the
+     * search results. Any search still in progress is cancelled and, since
+     * searches are numbered, results of superseded searches are discarded
+     * even if they arrive later. This method must be invoked from the main thread.
+     *
+     * @param query     The query.
+     * @param submitted true if the query was submitted by the user, false if it
+     *                  is the partial query of the autocompletion (in this case,
+     *                  the user is not notified if no cities are found).
+     */
+    private void searchCities(@NonNull String query, boolean submitted) {
+        cancelSearch();
+        final int searchSequenceNumber = ++currentSearchSequenceNumber;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        currentSearchCancellationSignal = cancellationSignal;
+
+        AtomicBoolean anyErrorsRetrievingCity = new AtomicBoolean(false);
+        LocationHelper.getCitiesFromNameAndConsume(
+                query,
+                cities -> {
+                    Log.d(TAG, "Cities matching the query \"" + query + "\": " + Arrays.toString(cities));
+                    LocationsAdapter cityNamesArrayAdapter = new LocationsAdapter(
+                            cities,
+                            viewBinding.searchBarResults,
+                            viewBinding.searchBar,
+                            selectedCity -> hideAppIconAndShowWeatherReports(selectedCity));
+                    Utility.runOnUiThread(
+                            getActivity(),
+                            () -> {
+                                if (searchSequenceNumber != currentSearchSequenceNumber) {
+                                    return;     // a newer search was started
+                                }
+                                viewBinding.searchBarResults.setAdapter(cityNamesArrayAdapter);
+                                viewBinding.searchBarResults.setVisibility(View.VISIBLE);
+                                if (submitted && cities.length == 0 && !anyErrorsRetrievingCity.get()) {
+                                    final String errorMsg = ResourceHelper.getResString(R.string.no_results);
+                                    Toast.makeText(requireContext().getApplicationContext(), errorMsg, Toast.LENGTH_LONG)
+                                            .show();
+                                }
+                            }
+                    );
+                },
+                errorMsgIdRes -> {
+                    anyErrorsRetrievingCity.set(true);
+                    if (submitted) {
+                        Utility.runOnUiThread(
+                                getActivity(),
+                                () -> Toast.makeText(requireContext().getApplicationContext(), errorMsgIdRes, Toast.LENGTH_LONG)
+                                        .show());
+                    }
+                },
+                cancellationSignal);
+    }
+
+    /**
+     * Cancels the search which is waiting for the debounce delay and the
+     * search in progress (if any). This method must be invoked from the main thread.
+     */
+    private void cancelSearch() {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        if (currentSearchCancellationSignal != null) {
+            currentSearchCancellationSignal.cancel();
+            currentSearchCancellationSignal = null;
+        }
+    }
+
     /**
      * Hides the application logo (which is shown by default) and
      * shows the weather reports (that are initially hidden).
@@ -19,9 +19,7 @@ import androidx.annotation.StringRes;
 import androidx.fragment.app.Fragment;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serializable;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -34,13 +32,16 @@ import it.units.youweather.entities.City;
 import it.units.youweather.entities.forecast_fields.Coordinates;
 import it.units.youweather.entities.forecast_fields.WeatherCondition;
 import it.units.youweather.entities.storage.WeatherReport;
+import it.units.youweather.entities.storage.WeatherReportPicture;
 import it.units.youweather.entities.storage.WeatherReportPreview;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.ImagesHelper;
 import it.units.youweather.utils.LocationHelper;
 import it.units.youweather.utils.PermissionsHelper;
 import it.units.youweather.utils.SharedData;
 import it.units.youweather.utils.Stoppable;
 import it.units.youweather.utils.Utility;
+import it.units.youweather.utils.WeatherIconRepository;
 import it.units.youweather.utils.auth.Authentication;
 import it.units.youweather.utils.storage.DBHelper;
 
@@ -136,14 +137,14 @@ public class NewReportFragment extends Fragment {
         viewBinding.weatherConditionIcon.setVisibility(View.INVISIBLE); // will become visible after setting the last known weather condition
 
         // Get picture from other fragment
-        final ImagesHelper.SerializableBitmap[] serializableBitmaps = new ImagesHelper.SerializableBitmap[1];   // array to make it final
+        final ImagesHelper.PictureRenditions[] capturedPictures = new ImagesHelper.PictureRenditions[1];   // array to make it final
         assert TakeAPhotoFragment.CAPTURED_PHOTO_REQUEST_KEY != null;
         requireActivity().getSupportFragmentManager()
                 .setFragmentResultListener(TakeAPhotoFragment.CAPTURED_PHOTO_REQUEST_KEY, this,
                         (requestKey, bundle) -> {
                             Serializable capturedPictureObj = bundle.getSerializable(TakeAPhotoFragment.CAPTURED_PHOTO_BUNDLE_KEY);
-                            if (capturedPictureObj instanceof ImagesHelper.SerializableBitmap) {
-                                serializableBitmaps[0] = (ImagesHelper.SerializableBitmap) capturedPictureObj;
+                            if (capturedPictureObj instanceof ImagesHelper.PictureRenditions) {
+                                capturedPictures[0] = (ImagesHelper.PictureRenditions) capturedPictureObj;
                             }
                         });
 
@@ -152,40 +153,53 @@ public class NewReportFragment extends Fragment {
 
             showOrHideProgressLoader(true, R.string.loading);
 
-            new Thread(() -> {
+            Dispatchers.io().execute(() -> {
 
                 if (cityMatchingCurrentUserPosition != null) {
                     WeatherCondition wcToSaveOnDb = Objects.requireNonNull(
                             WeatherCondition.getInstanceForDescription(
                                     (String) viewBinding.weatherConditionSpinner.getSelectedItem(), cityMatchingCurrentUserPosition));
-                    WeatherReport weatherReport = new WeatherReport(
+                    final ImagesHelper.PictureRenditions capturedPicture = capturedPictures[0];
+                    // The medium and full renditions of the picture (if any) are saved separately
+                    //  from the report, which only saves their keys, while the thumbnail is saved
+                    //  in the preview of the report: keys are assigned in advance, so that all
+                    //  the tuples are written at once (either all or none of them)
+                    final DBHelper.Batch batch = DBHelper.newBatch();
+                    final String mediumPictureKey, pictureKey;
+                    if (capturedPicture != null) {
+                        mediumPictureKey = batch.push(new WeatherReportPicture(capturedPicture.get(ImagesHelper.Rendition.MEDIUM)));
+                        pictureKey = batch.push(new WeatherReportPicture(capturedPicture.get(ImagesHelper.Rendition.FULL)));
+                    } else {
+                        mediumPictureKey = null;
+                        pictureKey = null;
+                    }
+                    final WeatherReport weatherReport = new WeatherReport(
                             Authentication.getCurrentlySignedInUserOrNull(requireContext()).getUserId(),
                             cityMatchingCurrentUserPosition,
                             new Coordinates(latitude, longitude),
                             wcToSaveOnDb,
-                            serializableBitmaps[0]);
-                    Runnable unableToPushErrorHandler = () -> {
-                        showOrHideProgressLoader(false, R.string.blank_string);
-                        Log.e(TAG, "Unable to push to DB " + weatherReport);
-                    };
-                    DBHelper.push(
+                            pictureKey,
+                            mediumPictureKey);
+                    final String weatherReportKey = batch.push(weatherReport);
+                    batch.push(new WeatherReportPreview(
+                            weatherReportKey,
                             weatherReport,
-                            () -> {
-
-                                WeatherReportPreview weatherReportPreview =
-                                        new WeatherReportPreview(weatherReport.getId(), weatherReport);
-
-                                DBHelper.push(weatherReportPreview,
-                                        () -> {
-                                            Log.d(TAG, "Pushed to DB " + weatherReport);
-                                            Toast.makeText(requireContext(), R.string.weather_report_added, Toast.LENGTH_LONG)
-                                                    .show();
-                                            recreateThisFragment();
-                                        },
-                                        unableToPushErrorHandler);
-
-                            },
-                            unableToPushErrorHandler);
+                            capturedPicture == null
+                                    ? null
+                                    : capturedPicture.get(ImagesHelper.Rendition.THUMBNAIL)));
+
+                    DBHelper.commitAsync(batch)
+                            .then(
+                                    keys -> {
+                                        Log.d(TAG, "Pushed to DB " + weatherReport);
+                                        Toast.makeText(requireContext(), R.string.weather_report_added, Toast.LENGTH_LONG)
+                                                .show();
+                                        recreateThisFragment();
+                                    },
+                                    error -> {
+                                        showOrHideProgressLoader(false, R.string.blank_string);
+                                        Log.e(TAG, "Unable to push the weather report to DB", error);
+                                    });
                 } else {
                     Activity activity = getActivity();
                     if (activity != null) {
@@ -195,7 +209,7 @@ public class NewReportFragment extends Fragment {
                     }
                 }
 
-            }).start();
+            });
         });
 
         return viewBinding.getRoot();
@@ -283,7 +297,7 @@ public class NewReportFragment extends Fragment {
                                                 final AtomicBoolean lastKnownWeatherConditionSet = new AtomicBoolean(false);
 
                                                 // Weather icon setter
-                                                final Runnable weatherIconSetter = () -> new Thread(() -> {
+                                                final Runnable weatherIconSetter = () -> Dispatchers.io().execute(() -> {
 
                                                     final int DELAY_RETRY_MILLIS = 50;
                                                     final int MAX_NUM_OF_RETRIES = 50;
@@ -301,10 +315,8 @@ public class NewReportFragment extends Fragment {
                                                         if (currentSelectedWeatherConditionLocal == null) {
                                                             currentSelectedWeatherConditionLocal = getString(R.string.WEATHER800);
                                                         }
-                                                        InputStream iconIS = new URL(WeatherCondition
-                                                                .getIconUrlForDescription(currentSelectedWeatherConditionLocal, cityMatchingCurrentUserPosition))
-                                                                .openStream();
-                                                        Drawable weatherIcon = Drawable.createFromStream(iconIS, "weatherIcon");
+                                                        Drawable weatherIcon = WeatherIconRepository.get(WeatherCondition
+                                                                .getIconUrlForDescription(currentSelectedWeatherConditionLocal, cityMatchingCurrentUserPosition));
 
                                                         Utility.runOnUiThread(
                                                                 activity_,
@@ -322,7 +334,7 @@ public class NewReportFragment extends Fragment {
                                                         Log.e(TAG, "Errors with translations. Recreating this fragment.");
                                                         recreateThisFragment();
                                                     }
-                                                }).start();
+                                                });
                                                 weatherIconSetter.run();
 
                                                 // Drop-down menu for choosing the weather condition
@@ -5,6 +5,7 @@ import android.app.Activity;
 import android.content.ContentValues;
 import android.content.Intent;
 import android.database.Cursor;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -21,12 +22,18 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 
 import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import it.units.youweather.R;
 import it.units.youweather.databinding.FragmentTakeAPhotoBinding;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.ImagesHelper;
 import it.units.youweather.utils.PermissionsHelper;
 import it.units.youweather.utils.ResourceHelper;
+import it.units.youweather.utils.Utility;
 
 public class TakeAPhotoFragment extends Fragment {
 
@@ -41,10 +48,24 @@ public class TakeAPhotoFragment extends Fragment {
     public static final String CAPTURED_PHOTO_REQUEST_KEY = TakeAPhotoFragment.class.getCanonicalName();
 
     /**
-     * The key for the {@link Bundle} used to pass to the image captured from this fragment.
+     * The key for the {@link Bundle} used to pass to the image captured from this fragment
+     * (as {@link ImagesHelper.PictureRenditions}).
      */
     public static final String CAPTURED_PHOTO_BUNDLE_KEY = "capturedPhoto";
 
+    /**
+     * Executor for the processing of the captured photos.
+     * It has a single thread and a single slot for waiting tasks: if
+     * a new photo is captured while another one is waiting to be
+     * processed, the waiting one is discarded.
+     */
+    private ThreadPoolExecutor imageProcessingExecutor;
+
+    /**
+     * The {@link Future} for the processing of the last captured photo.
+     */
+    private Future<?> imageProcessingFuture;
+
     public TakeAPhotoFragment() { // public no-args constructor
     }
 
@@ -58,7 +79,20 @@ public class TakeAPhotoFragment extends Fragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        imageProcessingExecutor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                new Dispatchers.NamedThreadFactory("image-processing"),
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
 
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (imageProcessingFuture != null) {
+            imageProcessingFuture.cancel(true);
+        }
+        imageProcessingExecutor.shutdownNow();
     }
 
     @Override
@@ -88,29 +122,11 @@ public class TakeAPhotoFragment extends Fragment {
                 result -> { // ActivityResultCallback<ActivityResult>#onActivityResult(ActivityResult)
                     if (result.getResultCode() == Activity.RESULT_OK) {
                         String imageRealUrl = getRealPathFromUri(imageUri);
-                        ImagesHelper.SerializableBitmap capturedImage =
-                                new ImagesHelper.SerializableBitmap(
-                                        ImagesHelper.straightImage(Uri.parse(imageRealUrl)));
-                        viewBinding.photo.setImageBitmap(capturedImage.getBitmap());
-                        viewBinding.photo.setVisibility(View.VISIBLE);
-
-                        File image = new File(imageRealUrl);
-                        if (!image.exists()) {
-                            Log.e(TAG, "Image not existing but not deleted...");
-                        } else {
-                            if (!image.delete()) {
-                                Log.e(TAG, "Unable to delete the image");
-                            }
-                        }
-
-                        Bundle exportPictureBundle = new Bundle();
-                        exportPictureBundle.putSerializable(CAPTURED_PHOTO_BUNDLE_KEY, capturedImage);
-                        assert CAPTURED_PHOTO_REQUEST_KEY != null;
-                        FragmentActivity activity = getActivity();
-                        if (activity != null) {
-                            activity.getSupportFragmentManager()
-                                    .setFragmentResult(CAPTURED_PHOTO_REQUEST_KEY, exportPictureBundle);
+                        if (imageProcessingFuture != null) {
+                            imageProcessingFuture.cancel(true); // a newer photo was captured
                         }
+                        imageProcessingFuture = imageProcessingExecutor.submit(
+                                () -> processCapturedImage(imageRealUrl, viewBinding));
                     }
                 });
 
@@ -137,6 +153,54 @@ public class TakeAPhotoFragment extends Fragment {
         return viewBinding.getRoot();
     }
 
+    /**
+     * Processes the captured image (this method is executed in background):
+     * straightens and compresses it, shows the preview and passes the result
+     * to other fragments.
+     * The processing is stopped between stages if the executing thread is
+     * interrupted (e.g., when the fragment is destroyed).
+     *
+     * @param imageRealUrl The real path of the captured image.
+     * @param viewBinding  The view-binding with the view.
+     */
+    private void processCapturedImage(@NonNull String imageRealUrl,
+                                      @NonNull FragmentTakeAPhotoBinding viewBinding) {
+        Bitmap straightenImage = ImagesHelper.straightImage(
+                Uri.parse(imageRealUrl), ImagesHelper.SerializableBitmap.MAX_NUM_OF_PIXELS);
+        if (Thread.currentThread().isInterrupted()) {
+            return; // the image file is kept, because a newer task will process it
+        }
+
+        File image = new File(imageRealUrl);
+        if (!image.exists()) {
+            Log.e(TAG, "Image not existing but not deleted...");
+        } else {
+            if (!image.delete()) {
+                Log.e(TAG, "Unable to delete the image");
+            }
+        }
+
+        Utility.runOnUiThread(getActivity(), () -> {
+            viewBinding.photo.setImageBitmap(straightenImage);
+            viewBinding.photo.setVisibility(View.VISIBLE);
+        });
+
+        ImagesHelper.PictureRenditions capturedImage = new ImagesHelper.PictureRenditions(straightenImage);
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+
+        Bundle exportPictureBundle = new Bundle();
+        exportPictureBundle.putSerializable(CAPTURED_PHOTO_BUNDLE_KEY, capturedImage);
+        assert CAPTURED_PHOTO_REQUEST_KEY != null;
+        FragmentActivity activity = getActivity();
+        if (activity != null) {
+            Utility.runOnUiThread(activity, () ->
+                    activity.getSupportFragmentManager()
+                            .setFragmentResult(CAPTURED_PHOTO_REQUEST_KEY, exportPictureBundle));
+        }
+    }
+
     /**
      * Get the real path of an image taken thanks to an Intent.
      * Adapted from <a href="https://stackoverflow.com/a/10382217/17402378">here</a>
@@ -24,22 +24,19 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import it.units.youweather.R;
 import it.units.youweather.databinding.FragmentUserPageWithHistoryBinding;
 import it.units.youweather.entities.storage.WeatherReport;
 import it.units.youweather.entities.storage.WeatherReportPreview;
 import it.units.youweather.utils.ConversionsHelper;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.SharedData;
 import it.units.youweather.utils.Timing;
 import it.units.youweather.utils.Utility;
@@ -47,6 +44,7 @@ import it.units.youweather.utils.auth.Authentication;
 import it.units.youweather.utils.functionals.Consumer;
 import it.units.youweather.utils.functionals.Predicate;
 import it.units.youweather.utils.storage.DBHelper;
+import it.units.youweather.utils.storage.LiveQuery;
 
 /**
  * Fragment containing user's info and the history of her/his
@@ -93,11 +91,10 @@ public class UserPageWithHistoryFragment extends Fragment {
     private Date maxDateFiltered;
 
     /**
-     * The {@link ScheduledExecutorService} to update the view with reports
-     * asynchronously downloaded from the database.
-     * {@link ScheduledExecutorService#shutdownNow()} must be invoked to terminate.
+     * The {@link LiveQuery} keeping {@link #weatherReports} up to date with the database.
+     * {@link LiveQuery#close()} must be invoked to terminate.
      */
-    private ScheduledExecutorService periodicViewUpdateWithReportsFromDBService;
+    private LiveQuery<WeatherReportPreview> weatherReportsLiveQuery;
 
     /**
      * Initialize the {@link DatePickerDialog} for a button that should be shown
@@ -354,18 +351,23 @@ public class UserPageWithHistoryFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        periodicViewUpdateWithReportsFromDBService = Executors.newScheduledThreadPool(1);
-        final int UPDATE_PERIOD_SECONDS = 5;
-        periodicViewUpdateWithReportsFromDBService
-                .scheduleAtFixedRate(getReportsFromDBAndPopulateView(), 0, UPDATE_PERIOD_SECONDS, TimeUnit.SECONDS);
+        try {
+            weatherReportsLiveQuery = DBHelper.observe(
+                    WeatherReportPreview.createQueryToRetrieveByUserId(Authentication.getCurrentlySignedInUserOrNull(requireContext()).getUserId()),
+                    WeatherReportPreview.class,
+                    (a, b) -> Long.compare(a.getReportedTimeMillisSinceEpoch(), b.getReportedTimeMillisSinceEpoch()),
+                    getWeatherReportsLiveQueryListener());
+        } catch (NoSuchFieldException e) {
+            Log.e(TAG, "Unknown reporter", e);
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
 
-        if (periodicViewUpdateWithReportsFromDBService != null) {
-            periodicViewUpdateWithReportsFromDBService.shutdownNow();
+        if (weatherReportsLiveQuery != null) {
+            weatherReportsLiveQuery.close();
         }
     }
 
@@ -382,60 +384,88 @@ public class UserPageWithHistoryFragment extends Fragment {
     }
 
     /**
-     * @return the {@link Runnable} that asynchronously downloads the data from the DB
-     * and populate this view.
-     * <strong>Notice</strong>: This {@link Runnable} must <strong>not</stron> be
-     * executed on the UI main thread.
+     * @return the {@link LiveQuery.Listener} that updates {@link #weatherReports} with the
+     * changes from the DB and populates this view (only when something changes).
+     * Changes are applied to a copy of {@link #weatherReports}, which is then replaced.
      */
-    private Runnable getReportsFromDBAndPopulateView() {
-        return () -> {
-            try {
-                DBHelper.pull(
-                        WeatherReportPreview.createQueryToRetrieveByUserId(Authentication.getCurrentlySignedInUserOrNull(requireContext()).getUserId()),
-                        WeatherReportPreview.class,
-                        retrievedWeatherReports -> {
-                            weatherReports = new LinkedList<>(Objects.requireNonNull(retrievedWeatherReports));
-                            Collections.sort(weatherReports, (a, b) -> (int) (a.getReportedTimeMillisSinceEpoch() - b.getReportedTimeMillisSinceEpoch()));
-                            Log.i(TAG, retrievedWeatherReports.size() + " elements retrieved from the DB");
-                            shownWeatherReports = new LinkedList<>(weatherReports);
-                            if (minDateFiltered != null) {
-                                for (WeatherReportPreview wrp : weatherReports) {
-                                    if (Timing.getDateFromMillisSinceEpoch(wrp.getReportedTimeMillisSinceEpoch()).compareTo(minDateFiltered) < 0) {
-                                        shownWeatherReports.remove(wrp);
-                                    }
-                                }
-                            }
-                            if (maxDateFiltered != null) {
-                                for (WeatherReportPreview wrp : weatherReports) {
-                                    if (Timing.getDateFromMillisSinceEpoch(wrp.getReportedTimeMillisSinceEpoch()).compareTo(maxDateFiltered) > 0) {
-                                        shownWeatherReports.remove(wrp);
-                                    }
-                                }
-                            }
-                            sendDataToMapFragment();
-                            populateReportHistoryTable();
-                        },
-                        () -> {
-                            String errorMsg = getString(R.string.Unable_to_retrieve_entities_from_DB)
-                                    + ". " + getString(R.string.check_internet_connection);
-                            Log.e(TAG, errorMsg);
-                            Toast.makeText(requireContext().getApplicationContext(), errorMsg, Toast.LENGTH_LONG)
-                                    .show();
-                        });
-            } catch (NoSuchFieldException e) {
-                Log.e(TAG, "Unknown reporter", e);
+    @NonNull
+    private LiveQuery.Listener<WeatherReportPreview> getWeatherReportsLiveQueryListener() {
+        return new LiveQuery.Listener<WeatherReportPreview>() {
+            @Override
+            public void onInitialized(@NonNull List<WeatherReportPreview> results) {
+                Log.i(TAG, results.size() + " elements retrieved from the DB");
+                onWeatherReportsChanged(new LinkedList<>(results));
+            }
+
+            @Override
+            public void onAdded(@NonNull WeatherReportPreview entity, int index) {
+                LinkedList<WeatherReportPreview> updatedWeatherReports = new LinkedList<>(weatherReports);
+                updatedWeatherReports.add(index, entity);
+                onWeatherReportsChanged(updatedWeatherReports);
+            }
+
+            @Override
+            public void onChanged(@NonNull WeatherReportPreview entity, int previousIndex, int index) {
+                LinkedList<WeatherReportPreview> updatedWeatherReports = new LinkedList<>(weatherReports);
+                updatedWeatherReports.remove(previousIndex);
+                updatedWeatherReports.add(index, entity);
+                onWeatherReportsChanged(updatedWeatherReports);
+            }
+
+            @Override
+            public void onRemoved(@NonNull WeatherReportPreview entity, int index) {
+                LinkedList<WeatherReportPreview> updatedWeatherReports = new LinkedList<>(weatherReports);
+                updatedWeatherReports.remove(index);
+                onWeatherReportsChanged(updatedWeatherReports);
+            }
+
+            @Override
+            public void onError() {
+                Utility.runOnUiThread(getActivity(), () -> {
+                    String errorMsg = getString(R.string.Unable_to_retrieve_entities_from_DB)
+                            + ". " + getString(R.string.check_internet_connection);
+                    Log.e(TAG, errorMsg);
+                    Toast.makeText(requireContext().getApplicationContext(), errorMsg, Toast.LENGTH_LONG)
+                            .show();
+                });
             }
         };
+    }
 
+    /**
+     * Replaces {@link #weatherReports} with the given (sorted) ones, filters them and
+     * populates this view.
+     * <strong>Notice</strong>: This method must <strong>not</strong> be executed on the
+     * UI main thread.
+     */
+    private void onWeatherReportsChanged(@NonNull List<WeatherReportPreview> updatedWeatherReports) {
+        weatherReports = Objects.requireNonNull(updatedWeatherReports);
+        shownWeatherReports = new LinkedList<>(weatherReports);
+        if (minDateFiltered != null) {
+            for (WeatherReportPreview wrp : weatherReports) {
+                if (Timing.getDateFromMillisSinceEpoch(wrp.getReportedTimeMillisSinceEpoch()).compareTo(minDateFiltered) < 0) {
+                    shownWeatherReports.remove(wrp);
+                }
+            }
+        }
+        if (maxDateFiltered != null) {
+            for (WeatherReportPreview wrp : weatherReports) {
+                if (Timing.getDateFromMillisSinceEpoch(wrp.getReportedTimeMillisSinceEpoch()).compareTo(maxDateFiltered) > 0) {
+                    shownWeatherReports.remove(wrp);
+                }
+            }
+        }
+        sendDataToMapFragment();
+        populateReportHistoryTable();
     }
 
     /**
-     * Asynchronously (on a new thread) populate the report history table,
+     * Asynchronously (on the {@link Dispatchers#cpu() CPU executor}) populate the report history table,
      * with data from {@link #shownWeatherReports}.
      */
     private void populateReportHistoryTable() {
 
-        new Thread(() -> {
+        Dispatchers.cpu().execute(() -> {
             List<TableRow> sortedTableRowList = new ArrayList<>();
 
             Activity activity;
@@ -491,7 +521,7 @@ public class UserPageWithHistoryFragment extends Fragment {
                         viewBinding.scrollViewHistoryReports.setVisibility(View.VISIBLE);
                     });
 
-        }).start();
+        });
 
     }
 }
\ No newline at end of file
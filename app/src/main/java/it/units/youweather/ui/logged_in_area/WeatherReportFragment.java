@@ -2,6 +2,7 @@ package it.units.youweather.ui.logged_in_area;
 
 import android.annotation.SuppressLint;
 import android.app.Dialog;
+import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
@@ -19,16 +20,21 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 
 import it.units.youweather.R;
 import it.units.youweather.databinding.FragmentWeatherReportBinding;
 import it.units.youweather.entities.storage.WeatherReport;
 import it.units.youweather.entities.storage.WeatherReportPreview;
+import it.units.youweather.utils.CancellationScope;
+import it.units.youweather.utils.Dispatchers;
+import it.units.youweather.utils.ImagesHelper;
+import it.units.youweather.utils.LazyPictureLoader;
+import it.units.youweather.utils.PictureCache;
 import it.units.youweather.utils.Timing;
-import it.units.youweather.utils.Utility;
+import it.units.youweather.utils.WeatherIconRepository;
 import it.units.youweather.utils.storage.DBEntity;
 import it.units.youweather.utils.storage.DBHelper;
 
@@ -50,7 +56,13 @@ public class WeatherReportFragment extends Fragment {
      */
     private static final String TAG = WeatherViewerFragment.class.getSimpleName();
 
-    private WeatherReport weatherReport;
+    private volatile WeatherReport weatherReport;
+
+    /**
+     * Flag set to true when the {@link ImagesHelper.Rendition#FULL full resolution}
+     * picture of the report is shown.
+     */
+    private volatile boolean fullPictureShown = false;
     private FragmentWeatherReportBinding viewBinding;
 
     public WeatherReportFragment() {
@@ -83,7 +95,12 @@ public class WeatherReportFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        new Thread(() -> {
+        // Operations started for this view are cancelled (or not started) when it is destroyed
+        final CancellationScope viewScope = CancellationScope.bindTo(getViewLifecycleOwner());
+        final Executor ioExecutor = viewScope.executor(Dispatchers.io());
+        final Executor uiExecutor = viewScope.executor(Dispatchers.main());
+
+        ioExecutor.execute(() -> {
 
             if (getArguments() != null) {
                 Object weatherReportInputParamObj =
@@ -93,26 +110,43 @@ public class WeatherReportFragment extends Fragment {
                 if (weatherReportInputParamObj instanceof WeatherReportPreview) {
 
                     WeatherReportPreview weatherReportPreview = (WeatherReportPreview) weatherReportInputParamObj;
+                    final String reportKey = weatherReportPreview.getWeatherReportDetailsKey();
+
+                    // Cached picture (if any) is looked up while the report is downloading
+                    final String fullPictureCacheKey = PictureCache.getKey(reportKey, ImagesHelper.Rendition.FULL);
+                    final String mediumPictureCacheKey = PictureCache.getKey(reportKey, ImagesHelper.Rendition.MEDIUM);
+                    final Bitmap cachedFullPicture = PictureCache.get(fullPictureCacheKey);
+                    final Bitmap cachedPicture = cachedFullPicture != null
+                            ? cachedFullPicture
+                            : PictureCache.get(mediumPictureCacheKey);
+                    fullPictureShown = cachedFullPicture != null;
 
                     DBEntity.registerThisClassForDB(WeatherReport.class);
-                    DBHelper.pullByKey(
-                            weatherReportPreview.getWeatherReportDetailsKey(),
-                            WeatherReport.class,
-                            (WeatherReport weatherReportDetails) -> new Thread(() -> {
+                    viewScope.track(DBHelper.pullByKeyAsync(reportKey, WeatherReport.class)).then(
+                            (WeatherReport weatherReportDetails) -> ioExecutor.execute(() -> {
 
                                 this.weatherReport = weatherReportDetails;
 
                                 Drawable imageTmp;
-                                if (weatherReport.getPicture() != null) {
-                                    imageTmp = new BitmapDrawable(getResources(), weatherReport.getPicture().getBitmap());
-                                } else {
-                                    try (InputStream iconIS =
-                                                 new URL(weatherReport.getWeatherCondition().getIconUrl()).openStream()) {
-                                        imageTmp = Drawable.createFromStream(iconIS, "weatherIcon");
+                                boolean pictureToLoad = false;
+                                if (cachedPicture != null) {
+                                    imageTmp = new BitmapDrawable(getResources(), cachedPicture);
+                                } else if (weatherReport.getPicture() != null) {   // picture embedded in the report (legacy)
+                                    Bitmap embeddedPicture = weatherReport.getPicture().getBitmap();
+                                    PictureCache.put(fullPictureCacheKey, weatherReport.getPicture(), embeddedPicture);
+                                    imageTmp = new BitmapDrawable(getResources(), embeddedPicture);
+                                    fullPictureShown = true;
+                                } else if (weatherReportPreview.getThumbnail() != null) {  // the thumbnail is shown until the picture is loaded
+                                    imageTmp = new BitmapDrawable(getResources(), weatherReportPreview.getThumbnail().getBitmap());
+                                    pictureToLoad = weatherReport.getPictureKey() != null;
+                                } else {    // the weather icon is shown until the picture (if any) is loaded
+                                    try {
+                                        imageTmp = WeatherIconRepository.get(weatherReport.getWeatherCondition().getIconUrl());
                                     } catch (IOException exception) {
                                         Log.e(TAG, "Weather icon not showed due to an exception", exception);
                                         imageTmp = ContextCompat.getDrawable(requireContext(), R.mipmap.ic_launcher);
                                     }
+                                    pictureToLoad = weatherReport.getPictureKey() != null;
                                 }
 
                                 double reportLatitude = weatherReport.getCoordinates().getLat();
@@ -128,9 +162,14 @@ public class WeatherReportFragment extends Fragment {
                                     final String weatherDescription = weatherReport.getWeatherCondition().getDescription();
                                     final String coordinates = getString(R.string.latitude_and_longitude, reportLatitude, reportLongitude);
                                     final String reportedDateTime = getString(R.string.reported_on_date, Timing.convertEpochMillisToFormattedDate(weatherReport.getMillisecondsSinceEpoch()));
-
-                                    Utility.runOnUiThread(
-                                            getActivity(),
+                                    // The medium rendition is loaded, if available (older reports have the full one only)
+                                    final boolean mediumPictureAvailable = weatherReport.getMediumPictureKey() != null;
+                                    final String pictureKey = pictureToLoad
+                                            ? (mediumPictureAvailable ? weatherReport.getMediumPictureKey() : weatherReport.getPictureKey())
+                                            : null;
+                                    final String pictureCacheKey = mediumPictureAvailable ? mediumPictureCacheKey : fullPictureCacheKey;
+
+                                    uiExecutor.execute(
                                             () -> {
                                                 viewBinding.reportImageOrWeatherConditionIcon.setImageDrawable(image);
                                                 viewBinding.cityName.setText(cityName);
@@ -142,15 +181,31 @@ public class WeatherReportFragment extends Fragment {
                                                 viewBinding.progressLoader.setVisibility(View.GONE);
 
                                                 viewBinding.reportImageOrWeatherConditionIcon
-                                                        .setOnClickListener(view_ -> showFullScreenWeatherReportImage(viewBinding));
+                                                        .setOnClickListener(view_ -> showFullScreenWeatherReportImage(viewBinding, fullPictureCacheKey));
+
+                                                if (pictureKey != null) {
+                                                    LazyPictureLoader.loadWhenVisible(
+                                                            viewBinding.reportImageOrWeatherConditionIcon,
+                                                            pictureKey,
+                                                            pictureCacheKey,
+                                                            bitmap -> {
+                                                                viewBinding.reportImageOrWeatherConditionIcon.setImageBitmap(bitmap);
+                                                                fullPictureShown = fullPictureShown || !mediumPictureAvailable;
+                                                            },
+                                                            () -> Log.e(TAG, "Picture not showed for report " + weatherReport.getId()));
+                                                }
                                             });
                                 }
 
-                            }).start(),
-                            () -> {
-                                Log.e(TAG, "Unable to retrieve details");
-                                Toast.makeText(requireContext().getApplicationContext(), R.string.error_unable_to_retrieve_data, Toast.LENGTH_LONG)
-                                        .show();
+                            }),
+                            error -> {
+                                if (error instanceof CancellationException) {
+                                    return;
+                                }
+                                Log.e(TAG, "Unable to retrieve details", error);
+                                uiExecutor.execute(() ->
+                                        Toast.makeText(requireContext().getApplicationContext(), R.string.error_unable_to_retrieve_data, Toast.LENGTH_LONG)
+                                                .show());
                             });
 
 
@@ -160,15 +215,18 @@ public class WeatherReportFragment extends Fragment {
                 }
             }
 
-        }).start();
+        });
 
     }
 
     /**
      * Shows the weather report image to full screen.
+     * The {@link ImagesHelper.Rendition#FULL full resolution} picture is
+     * loaded, if it was not already shown.
      * Adapted from <a href="https://stackoverflow.com/a/12089733/17402378">here</a>.
      */
-    private void showFullScreenWeatherReportImage(FragmentWeatherReportBinding viewBinding) {
+    private void showFullScreenWeatherReportImage(FragmentWeatherReportBinding viewBinding,
+                                                  @NonNull String fullPictureCacheKey) {
         Dialog imageFullScreenPreview = new Dialog(requireContext(), android.R.style.Theme_Translucent_NoTitleBar_Fullscreen);
         imageFullScreenPreview.requestWindowFeature(Window.FEATURE_NO_TITLE);
         imageFullScreenPreview.setContentView(R.layout.preview_image);
@@ -176,5 +234,18 @@ public class WeatherReportFragment extends Fragment {
         ImageView ivPreview = imageFullScreenPreview.findViewById(R.id.preview_image);
         ivPreview.setImageDrawable(viewBinding.reportImageOrWeatherConditionIcon.getDrawable());
         ivPreview.setBackgroundColor(ContextCompat.getColor(requireContext(), R.color.white));
+
+        if (!fullPictureShown && weatherReport != null && weatherReport.getPictureKey() != null) {
+            LazyPictureLoader.loadWhenVisible(
+                    ivPreview,
+                    weatherReport.getPictureKey(),
+                    fullPictureCacheKey,
+                    bitmap -> {
+                        ivPreview.setImageBitmap(bitmap);
+                        viewBinding.reportImageOrWeatherConditionIcon.setImageBitmap(bitmap);
+                        fullPictureShown = true;
+                    },
+                    () -> Log.e(TAG, "Full resolution picture not showed for report " + weatherReport.getId()));
+        }
     }
 }
\ No newline at end of file
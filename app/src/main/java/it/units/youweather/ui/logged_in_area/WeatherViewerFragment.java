@@ -12,20 +12,23 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentContainerView;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serializable;
-import java.net.URL;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 
 import it.units.youweather.R;
 import it.units.youweather.databinding.FragmentWeatherViewerBinding;
 import it.units.youweather.entities.City;
+import it.units.youweather.entities.Forecast;
 import it.units.youweather.entities.Temperature;
 import it.units.youweather.entities.forecast_fields.Coordinates;
 import it.units.youweather.entities.forecast_fields.MainForecastData;
 import it.units.youweather.entities.forecast_fields.WeatherCondition;
+import it.units.youweather.utils.CancellationScope;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.LocationHelper;
-import it.units.youweather.utils.Utility;
+import it.units.youweather.utils.Promise;
+import it.units.youweather.utils.WeatherIconRepository;
 
 /**
  * Fragment used to show the weather for a specific location.
@@ -63,6 +66,11 @@ public class WeatherViewerFragment extends Fragment {
 
     private static final String TAG = WeatherViewerFragment.class.getSimpleName();
 
+    /**
+     * The {@link Forecast} being retrieved (if any).
+     */
+    private Promise<Forecast> pendingForecast = null;
+
     public WeatherViewerFragment() { // public no-args constructor
     }
 
@@ -84,6 +92,8 @@ public class WeatherViewerFragment extends Fragment {
         // Inflate the layout for this fragment
         FragmentWeatherViewerBinding viewBinding = FragmentWeatherViewerBinding.inflate(getLayoutInflater());
         View view = viewBinding.getRoot();
+        // Operations started for this view are cancelled when it is destroyed
+        final CancellationScope viewScope = CancellationScope.bindTo(getViewLifecycleOwner());
 
         Fragment fragmentContainer =
                 ((FragmentContainerView) Objects.requireNonNull(container).getRootView()
@@ -98,17 +108,24 @@ public class WeatherViewerFragment extends Fragment {
                                 City cityToSearchForTheWeather = (City) dataFromOtherFragment;
                                 Log.d(TAG, "Received: " + cityToSearchForTheWeather);
 
-                                LocationHelper.getForecastForCoordinates(
-                                        new Coordinates(cityToSearchForTheWeather.getLat(), cityToSearchForTheWeather.getLon()),
+                                // Only the forecast for the last received city is needed
+                                if (pendingForecast != null) {
+                                    pendingForecast.cancel();
+                                }
+                                pendingForecast = viewScope.track(LocationHelper.getForecastForCoordinatesAsync(
+                                        new Coordinates(cityToSearchForTheWeather.getLat(), cityToSearchForTheWeather.getLon())));
+                                pendingForecast.then(
                                         forecast -> {
+                                            if (viewScope.isCancelled()) {
+                                                return;
+                                            }
                                             WeatherCondition[] weatherConditions = forecast.getWeather();
                                             String weatherDescription_tmp = "";
                                             Drawable weatherIcon_tmp = null;
                                             if (weatherConditions.length > 0) {
                                                 weatherDescription_tmp = weatherConditions[0].getDescription();
-                                                try (InputStream iconIS =
-                                                             new URL(weatherConditions[0].getIconUrl()).openStream()) {
-                                                    weatherIcon_tmp = Drawable.createFromStream(iconIS, "weatherIcon");
+                                                try {
+                                                    weatherIcon_tmp = WeatherIconRepository.get(weatherConditions[0].getIconUrl());
                                                 } catch (IOException exception) {
                                                     Log.e(TAG, "Weather icon not showed due to an exception", exception);
                                                 }
@@ -127,8 +144,7 @@ public class WeatherViewerFragment extends Fragment {
                                             final String minTemperature = new Temperature(mainForecastData.getTemp_min()).getTemperatureWithMeasureUnit();
                                             final String maxTemperature = new Temperature(mainForecastData.getTemp_max()).getTemperatureWithMeasureUnit();
 
-                                            Utility.runOnUiThread(
-                                                    getActivity(),
+                                            viewScope.executor(Dispatchers.main()).execute(
                                                     () -> {
 
                                                         if (weatherIcon != null) {
@@ -148,8 +164,11 @@ public class WeatherViewerFragment extends Fragment {
                                                                 .commitNow();
                                                     });
                                         },
-                                        exception -> Log.e(TAG, "Error while getting forecast", exception))
-                                ;
+                                        exception -> {
+                                            if (!(exception instanceof CancellationException)) {
+                                                Log.e(TAG, "Error while getting forecast", exception);
+                                            }
+                                        });
                             }
                         });
 
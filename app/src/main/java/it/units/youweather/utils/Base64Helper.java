@@ -1,9 +1,15 @@
 package it.units.youweather.utils;
 
+import android.util.Base64;
+import android.util.Base64InputStream;
+import android.util.Base64OutputStream;
+
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.common.util.Base64Utils;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Objects;
 
 public abstract class Base64Helper {
@@ -28,4 +34,120 @@ public abstract class Base64Helper {
         return Base64Utils.decode(Objects.requireNonNull(base64Encoded));
     }
 
+    /**
+     * Creates an {@link OutputStream} which encodes the bytes written to it
+     * and writes the Base64-encoded result to the given {@link OutputStream}.
+     * The returned stream must be closed to complete the encoding (closing it
+     * closes the given stream too).
+     *
+     * @param destination The {@link OutputStream} for the Base64-encoded result.
+     * @return The encoding {@link OutputStream}.
+     */
+    @NonNull
+    public static OutputStream newEncoder(@NonNull OutputStream destination) {
+        return new Base64OutputStream(Objects.requireNonNull(destination), Base64.NO_WRAP);
+    }
+
+    /**
+     * Like {@link #newEncoder(OutputStream)}, but the Base64-encoded result is
+     * appended to the given {@link StringBuilder}. This avoids to keep in memory
+     * both the bytes to encode and the encoded result.
+     *
+     * @param destination The {@link StringBuilder} for the Base64-encoded result.
+     * @return The encoding {@link OutputStream}.
+     */
+    @NonNull
+    public static OutputStream newEncoder(@NonNull StringBuilder destination) {
+        return newEncoder(new StringBuilderOutputStream(Objects.requireNonNull(destination)));
+    }
+
+    /**
+     * Creates an {@link InputStream} which reads the Base64-encoded data from
+     * the given {@link InputStream} and provides the decoded bytes.
+     *
+     * @param source The {@link InputStream} with the Base64-encoded data.
+     * @return The decoding {@link InputStream}.
+     */
+    @NonNull
+    public static InputStream newDecoder(@NonNull InputStream source) {
+        return new Base64InputStream(Objects.requireNonNull(source), Base64.DEFAULT);
+    }
+
+    /**
+     * Like {@link #newDecoder(InputStream)}, but the Base64-encoded data are read
+     * from the given {@link CharSequence}, without copying it.
+     *
+     * @param base64Encoded The Base64-encoded data.
+     * @return The decoding {@link InputStream}.
+     */
+    @NonNull
+    public static InputStream newDecoder(@NonNull CharSequence base64Encoded) {
+        return newDecoder(new CharSequenceInputStream(Objects.requireNonNull(base64Encoded)));
+    }
+
+    /**
+     * {@link OutputStream} appending the written bytes (which must be ASCII
+     * characters, like the Base64-encoded ones) to a {@link StringBuilder}.
+     */
+    private static class StringBuilderOutputStream extends OutputStream {
+
+        private final StringBuilder destination;
+
+        private StringBuilderOutputStream(@NonNull StringBuilder destination) {
+            this.destination = destination;
+        }
+
+        @Override
+        public void write(int b) {
+            destination.append((char) (b & 0xFF));
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) {
+            destination.ensureCapacity(destination.length() + len);
+            for (int i = off; i < off + len; i++) {
+                destination.append((char) (b[i] & 0xFF));
+            }
+        }
+    }
+
+    /**
+     * {@link InputStream} reading the characters (which must be ASCII
+     * characters, like the Base64-encoded ones) of a {@link CharSequence}.
+     */
+    private static class CharSequenceInputStream extends InputStream {
+
+        private final CharSequence source;
+        private int position = 0;
+
+        private CharSequenceInputStream(@NonNull CharSequence source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return position < source.length() ? (source.charAt(position++) & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= source.length()) {
+                return -1;
+            }
+            int numOfReadBytes = Math.min(len, source.length() - position);
+            for (int i = 0; i < numOfReadBytes; i++) {
+                b[off + i] = (byte) source.charAt(position++);
+            }
+            return numOfReadBytes;
+        }
+
+        @Override
+        public int available() {
+            return source.length() - position;
+        }
+    }
+
 }
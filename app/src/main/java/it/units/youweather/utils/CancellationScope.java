@@ -0,0 +1,155 @@
+package it.units.youweather.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Scope for the asynchronous operations started by a component (e.g., a
+ * fragment), to be cancelled all together when their results are not
+ * needed anymore.
+ * When the scope is {@link #bindTo(LifecycleOwner) bound} to a
+ * {@link LifecycleOwner} (e.g., the view lifecycle owner of a fragment),
+ * it is cancelled when the owner is destroyed: {@link #track(Promise) tracked}
+ * {@link Promise}s are cancelled (which aborts pending HTTP connections
+ * and detaches database listeners of the operations completing them) and
+ * tasks submitted to the {@link #executor(Executor) executors} of this
+ * scope are dropped if they did not start yet.
+ * Instances are thread-safe.
+ *
+ * @author Matteo Ferfoglia
+ */
+public class CancellationScope {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = CancellationScope.class.getSimpleName();
+
+    /**
+     * The {@link Promise}s tracked by this scope which are not completed yet.
+     */
+    private final Set<Promise<?>> pendingPromises = new LinkedHashSet<>();
+
+    /**
+     * Flag set to true when this scope is cancelled.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Creates a new scope, to be cancelled explicitly with {@link #cancel()}.
+     */
+    public CancellationScope() {
+    }
+
+    /**
+     * @param lifecycleOwner The {@link LifecycleOwner} (e.g., the result of
+     *                       {@link androidx.fragment.app.Fragment#getViewLifecycleOwner()}).
+     * @return a new scope, which is cancelled when the given {@link LifecycleOwner} is destroyed.
+     * This method must be invoked from the main thread.
+     */
+    @NonNull
+    public static CancellationScope bindTo(@NonNull LifecycleOwner lifecycleOwner) {
+        final CancellationScope scope = new CancellationScope();
+        final Lifecycle lifecycle = Objects.requireNonNull(lifecycleOwner).getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            scope.cancel();
+        } else {
+            lifecycle.addObserver(new LifecycleEventObserver() {
+                @Override
+                public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                    if (event == Lifecycle.Event.ON_DESTROY) {
+                        source.getLifecycle().removeObserver(this);
+                        scope.cancel();
+                    }
+                }
+            });
+        }
+        return scope;
+    }
+
+    /**
+     * Makes this scope track the given {@link Promise}: it will be cancelled when
+     * this scope is cancelled, if it is not completed yet (or immediately, if this
+     * scope is already cancelled).
+     *
+     * @param promise The {@link Promise} to track.
+     * @return the given {@link Promise}.
+     */
+    @NonNull
+    public <T> Promise<T> track(@NonNull Promise<T> promise) {
+        Objects.requireNonNull(promise);
+        synchronized (pendingPromises) {
+            if (!cancelled) {
+                pendingPromises.add(promise);
+            }
+        }
+        if (cancelled) {
+            promise.cancel();
+        } else {
+            Runnable untrack = () -> {
+                synchronized (pendingPromises) {
+                    pendingPromises.remove(promise);
+                }
+            };
+            promise.then(result -> untrack.run(), error -> untrack.run());
+        }
+        return promise;
+    }
+
+    /**
+     * @param executor The {@link Executor} (e.g., one of {@link Dispatchers}).
+     * @return an {@link Executor} which submits tasks to the given one, but the tasks
+     * which did not start before this scope is cancelled are not executed.
+     */
+    @NonNull
+    public Executor executor(@NonNull Executor executor) {
+        Objects.requireNonNull(executor);
+        return task -> {
+            Objects.requireNonNull(task);
+            if (!cancelled) {
+                executor.execute(() -> {
+                    if (!cancelled) {
+                        task.run();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * @return true if this scope was cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels this scope and all the {@link Promise}s tracked by it.
+     */
+    public void cancel() {
+        final Promise<?>[] promisesToCancel;
+        synchronized (pendingPromises) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            promisesToCancel = pendingPromises.toArray(new Promise<?>[0]);
+            pendingPromises.clear();
+        }
+        if (promisesToCancel.length > 0) {
+            Log.d(TAG, "Cancelling " + promisesToCancel.length + " pending operations");
+        }
+        for (Promise<?> promise : promisesToCancel) {
+            promise.cancel();
+        }
+    }
+}
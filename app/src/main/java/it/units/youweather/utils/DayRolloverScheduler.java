@@ -0,0 +1,108 @@
+package it.units.youweather.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide scheduler notifying the registered {@link DayRolloverListener}s
+ * when the midnight is reached (in the default time zone).
+ * A single task on the {@link Dispatchers#scheduler() scheduler} serves all listeners.
+ * Listeners are held by {@link WeakReference}s, so registering an object does
+ * not prevent it from being garbage-collected, and there is no need to unregister it.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class DayRolloverScheduler {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = DayRolloverScheduler.class.getSimpleName();
+
+    /**
+     * The registered listeners.
+     */
+    private static final List<WeakReference<DayRolloverListener>> listeners = new ArrayList<>();
+
+    /**
+     * Flag: true if the notification of the listeners was scheduled.
+     */
+    private static boolean scheduled = false;
+
+    /**
+     * Registers the given {@link DayRolloverListener}.
+     *
+     * @param listener The {@link DayRolloverListener} to register.
+     */
+    public static void register(@NonNull DayRolloverListener listener) {
+        Objects.requireNonNull(listener);
+        synchronized (listeners) {
+            listeners.add(new WeakReference<>(listener));
+            if (!scheduled) {
+                scheduled = true;
+                scheduleNextRollover();
+            }
+        }
+    }
+
+    /**
+     * Schedules the notification of the listeners at the next midnight.
+     * The delay is computed again for each day, to consider changes of
+     * the daylight saving time.
+     */
+    private static void scheduleNextRollover() {
+        Calendar nextMidnight = Calendar.getInstance();
+        nextMidnight.set(Calendar.HOUR_OF_DAY, 0);
+        nextMidnight.set(Calendar.MINUTE, 0);
+        nextMidnight.set(Calendar.SECOND, 0);
+        nextMidnight.set(Calendar.MILLISECOND, 0);
+        nextMidnight.add(Calendar.DATE, 1);
+
+        final long millisToMidnight = nextMidnight.getTimeInMillis() - Timing.getMillisSinceEpoch();
+        Log.d(TAG, "Next day rollover in " + millisToMidnight + " ms");
+        Dispatchers.scheduler().schedule(DayRolloverScheduler::notifyListeners, millisToMidnight, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Notifies the listeners still alive and forgets the garbage-collected ones.
+     */
+    private static void notifyListeners() {
+        List<DayRolloverListener> aliveListeners = new ArrayList<>();
+        synchronized (listeners) {
+            Iterator<WeakReference<DayRolloverListener>> iterator = listeners.iterator();
+            while (iterator.hasNext()) {
+                DayRolloverListener listener = iterator.next().get();
+                if (listener == null) {
+                    iterator.remove();
+                } else {
+                    aliveListeners.add(listener);
+                }
+            }
+            scheduleNextRollover();
+        }
+
+        for (DayRolloverListener listener : aliveListeners) {
+            try {
+                listener.onDayRollover();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error in day rollover listener " + listener, e);
+            }
+        }
+    }
+
+    /**
+     * Listener to be notified when the day changes.
+     */
+    public interface DayRolloverListener {
+        void onDayRollover();
+    }
+}
@@ -0,0 +1,206 @@
+package it.units.youweather.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide executors, to be used instead of creating new threads:
+ * <ul>
+ *     <li>{@link #io()} for blocking operations (network, disk, waiting for results);</li>
+ *     <li>{@link #cpu()} for computations (e.g., decoding of entities or images);</li>
+ *     <li>{@link #main()} for operations on the main (UI) thread;</li>
+ *     <li>{@link #scheduler()} for delayed or periodic operations.</li>
+ * </ul>
+ * Threads are created when needed, up to the size of the pool, and idle threads
+ * are terminated after a while. Tasks exceeding the size of the pool are queued.
+ * Tasks submitted to the {@link #scheduler()} must be short: longer ones must
+ * be forwarded to the other executors.
+ * Executors cannot be shut down.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class Dispatchers {
+
+    /**
+     * The maximum number of threads for blocking operations.
+     */
+    private static final int IO_POOL_SIZE = 8;
+
+    /**
+     * The maximum number of threads for computations.
+     */
+    private static final int CPU_POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Time after which idle threads are terminated.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ExecutorService ioExecutor = Executors.unconfigurableExecutorService(
+            newPool(IO_POOL_SIZE, new NamedThreadFactory("io", Process.THREAD_PRIORITY_BACKGROUND)));
+
+    private static final ExecutorService cpuExecutor = Executors.unconfigurableExecutorService(
+            newPool(CPU_POOL_SIZE, new NamedThreadFactory("cpu", Process.THREAD_PRIORITY_BACKGROUND)));
+
+    private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    private static final Executor mainExecutor = mainThreadHandler::post;
+
+    private static final ScheduledExecutorService scheduledExecutor;
+
+    static {
+        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(
+                1, new NamedThreadFactory("scheduler", Process.THREAD_PRIORITY_DEFAULT));
+        scheduledThreadPoolExecutor.setRemoveOnCancelPolicy(true);     // cancelled tasks do not stay in the queue
+        scheduledExecutor = Executors.unconfigurableScheduledExecutorService(scheduledThreadPoolExecutor);
+    }
+
+    /**
+     * @return the {@link ExecutorService} for blocking operations.
+     */
+    @NonNull
+    public static ExecutorService io() {
+        return ioExecutor;
+    }
+
+    /**
+     * @return the {@link ExecutorService} for computations.
+     */
+    @NonNull
+    public static ExecutorService cpu() {
+        return cpuExecutor;
+    }
+
+    /**
+     * @return the {@link Executor} for the main (UI) thread.
+     */
+    @NonNull
+    public static Executor main() {
+        return mainExecutor;
+    }
+
+    /**
+     * @return the {@link ScheduledExecutorService} for delayed or periodic operations.
+     */
+    @NonNull
+    public static ScheduledExecutorService scheduler() {
+        return scheduledExecutor;
+    }
+
+    /**
+     * @param executor The {@link Executor} (e.g., {@link #cpu()}) that will execute the tasks.
+     * @return a new {@link Executor} which executes the submitted tasks with the
+     * given {@link Executor}, one at a time and in the order of submission
+     * (e.g., to process events in order without blocking the main thread).
+     */
+    @NonNull
+    public static Executor newSerialExecutor(@NonNull Executor executor) {
+        return new SerialExecutor(Objects.requireNonNull(executor));
+    }
+
+    /**
+     * @return a new {@link ThreadPoolExecutor} with at most the given number of threads.
+     */
+    @NonNull
+    private static ThreadPoolExecutor newPool(int maxNumberOfThreads, @NonNull ThreadFactory threadFactory) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                maxNumberOfThreads, maxNumberOfThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * See {@link #newSerialExecutor(Executor)}.
+     */
+    private static class SerialExecutor implements Executor {
+
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean running = false;    // true if a task was submitted to the executor and not completed yet
+
+        SerialExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable task) {
+            Objects.requireNonNull(task);
+            tasks.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (!running) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            Runnable next = tasks.poll();
+            running = next != null;
+            if (next != null) {
+                executor.execute(next);
+            }
+        }
+    }
+
+    /**
+     * {@link ThreadFactory} creating daemon threads named with the given
+     * prefix followed by a progressive number (e.g., "io-3"), useful for
+     * debugging and profiling.
+     */
+    public static class NamedThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final int androidThreadPriority;
+        private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+        /**
+         * Constructor.
+         *
+         * @param namePrefix            The prefix for the names of the threads.
+         * @param androidThreadPriority The priority of the threads (see {@link Process#setThreadPriority(int)}).
+         */
+        public NamedThreadFactory(@NonNull String namePrefix, int androidThreadPriority) {
+            this.namePrefix = namePrefix;
+            this.androidThreadPriority = androidThreadPriority;
+        }
+
+        /**
+         * Like {@link #NamedThreadFactory(String, int)}, but threads have background priority.
+         */
+        public NamedThreadFactory(@NonNull String namePrefix) {
+            this(namePrefix, Process.THREAD_PRIORITY_BACKGROUND);
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(androidThreadPriority);
+                runnable.run();
+            }, namePrefix + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
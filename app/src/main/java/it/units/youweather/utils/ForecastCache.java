@@ -0,0 +1,147 @@
+package it.units.youweather.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import it.units.youweather.EnvironmentVariables;
+import it.units.youweather.entities.Forecast;
+import it.units.youweather.entities.forecast_fields.Coordinates;
+
+/**
+ * Cache for {@link Forecast}s.
+ * Coordinates are snapped to a grid (see {@link EnvironmentVariables#FORECAST_CACHE_GRID_DEGREES}),
+ * so that the same {@link Forecast} is used for near locations, and cached
+ * {@link Forecast}s expire after {@link EnvironmentVariables#FORECAST_CACHE_TTL_MILLIS}
+ * (OpenWeather updates data about every 10 minutes).
+ * Concurrent requests for the same grid cell are coalesced into a single request.
+ *
+ * @author Matteo Ferfoglia
+ */
+abstract class ForecastCache {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = ForecastCache.class.getSimpleName();
+
+    /**
+     * Interface for the operation which loads a {@link Forecast} in case of cache miss.
+     */
+    interface ForecastLoader {
+        @NonNull
+        Forecast load(@NonNull Coordinates coordinates) throws IOException;
+    }
+
+    /**
+     * Cached {@link Forecast}s (grid cells as keys).
+     */
+    private static final ConcurrentMap<String, CachedForecast> cache = new ConcurrentHashMap<>();
+
+    /**
+     * {@link Forecast}s which are currently being loaded (grid cells as keys).
+     */
+    private static final ConcurrentMap<String, FutureTask<Forecast>> forecastsBeingLoaded = new ConcurrentHashMap<>();
+
+    /**
+     * @param coordinates The {@link Coordinates} for which the {@link Forecast} is requested.
+     * @param loader      The {@link ForecastLoader} used in case of cache miss.
+     * @return the cached {@link Forecast} for the given {@link Coordinates} or, if it is
+     * absent or expired, the one returned by the given {@link ForecastLoader}.
+     * @throws IOException If the {@link ForecastLoader} throws.
+     */
+    @NonNull
+    static Forecast get(@NonNull Coordinates coordinates, @NonNull ForecastLoader loader)
+            throws IOException {
+        Objects.requireNonNull(coordinates);
+        Objects.requireNonNull(loader);
+        final String key = getGridCellKey(coordinates);
+
+        CachedForecast cachedForecast = cache.get(key);
+        if (cachedForecast != null && !cachedForecast.isExpired()) {
+            return cachedForecast.forecast;
+        }
+
+        FutureTask<Forecast> newLoadingTask = new FutureTask<>(() -> {
+            Forecast forecast = loader.load(coordinates);
+            evictExpired();
+            cache.put(key, new CachedForecast(forecast));
+            return forecast;
+        });
+        FutureTask<Forecast> loadingTask = forecastsBeingLoaded.putIfAbsent(key, newLoadingTask);
+        if (loadingTask == null) {  // no other threads are loading the forecast
+            loadingTask = newLoadingTask;
+            try {
+                loadingTask.run();
+            } finally {
+                forecastsBeingLoaded.remove(key, loadingTask);
+            }
+        } else {
+            Log.d(TAG, "Waiting for the forecast being loaded for " + key);
+        }
+
+        try {
+            return loadingTask.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else {
+                throw new IOException("Unable to load the forecast for " + key, cause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the forecast for " + key, e);
+        }
+    }
+
+    /**
+     * @return the key of the grid cell containing the given {@link Coordinates}.
+     */
+    @NonNull
+    private static String getGridCellKey(@NonNull Coordinates coordinates) {
+        final double gridSize = EnvironmentVariables.FORECAST_CACHE_GRID_DEGREES;
+        return String.format(Locale.ROOT, "%d_%d",
+                Math.round(coordinates.getLat() / gridSize), Math.round(coordinates.getLon() / gridSize));
+    }
+
+    /**
+     * Removes the expired entries from the cache.
+     */
+    private static void evictExpired() {
+        Iterator<Map.Entry<String, CachedForecast>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isExpired()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A cached {@link Forecast}, with its expiration time.
+     */
+    private static class CachedForecast {
+        private final Forecast forecast;
+        private final long expirationMillisSinceEpoch;
+
+        private CachedForecast(@NonNull Forecast forecast) {
+            this.forecast = Objects.requireNonNull(forecast);
+            this.expirationMillisSinceEpoch =
+                    Timing.getMillisSinceEpoch() + EnvironmentVariables.FORECAST_CACHE_TTL_MILLIS;
+        }
+
+        private boolean isExpired() {
+            return Timing.getMillisSinceEpoch() >= expirationMillisSinceEpoch;
+        }
+    }
+}
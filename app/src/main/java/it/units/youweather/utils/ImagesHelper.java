@@ -12,10 +12,15 @@ import androidx.exifinterface.media.ExifInterface;
 import com.google.firebase.database.Exclude;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.Objects;
 
+import it.units.youweather.utils.storage.DBEntityCodec;
+
 /**
  * Utility class for pictures.
  * Adapted from <a href="https://stackoverflow.com/a/14066265/17402378">here</a>.
@@ -37,6 +42,22 @@ public abstract class ImagesHelper {
      * @return The straighten image.
      */
     public static Bitmap straightImage(@NonNull Uri inputImageUri) {
+        return straightImage(inputImageUri, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #straightImage(Uri)}, but the returned image has at most the
+     * provided number of pixels (intended as outputWidthPx * outputHeightPx).
+     * The image is decoded with a sample size as close as possible to the
+     * desired number of pixels (this avoids to decode the image at full
+     * resolution), then the rotation and the final scaling are applied
+     * together.
+     *
+     * @param inputImageUri  The {@link Uri} to the Bitmap image.
+     * @param maxNumOfPixels The maximum number of pixels of the output image.
+     * @return The straighten image.
+     */
+    public static Bitmap straightImage(@NonNull Uri inputImageUri, int maxNumOfPixels) {
         try {
             String inputBitmapPath = Objects.requireNonNull(inputImageUri).getPath();
             ExifInterface ei = new ExifInterface(inputBitmapPath);
@@ -44,29 +65,56 @@ public abstract class ImagesHelper {
                     ExifInterface.TAG_ORIENTATION,      // tag for the desired attribute (we want to know the actual image orientation)
                     ExifInterface.ORIENTATION_UNDEFINED // default returned value if the specified tag in unavailable
             );
-            Bitmap inputBitmap = BitmapFactory.decodeFile(inputBitmapPath);
+
+            // Read the image size only, without allocating memory for pixels
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(inputBitmapPath, options);
+            options.inSampleSize = computeSampleSize(options.outWidth, options.outHeight, maxNumOfPixels);
+            options.inJustDecodeBounds = false;
+
+            Bitmap inputBitmap = BitmapFactory.decodeFile(inputBitmapPath, options);
 
             if (inputBitmap != null) {
 
-                Bitmap straightenImage;
+                float rotationAngle;
                 switch (imageOrientation) {
                     case ExifInterface.ORIENTATION_ROTATE_90:
-                        straightenImage = rotateImage(inputBitmap, 90);
+                        rotationAngle = 90;
                         break;
 
                     case ExifInterface.ORIENTATION_ROTATE_180:
-                        straightenImage = rotateImage(inputBitmap, 180);
+                        rotationAngle = 180;
                         break;
 
                     case ExifInterface.ORIENTATION_ROTATE_270:
-                        straightenImage = rotateImage(inputBitmap, 270);
+                        rotationAngle = 270;
                         break;
 
                     case ExifInterface.ORIENTATION_NORMAL:
                     default:
-                        straightenImage = inputBitmap;
+                        rotationAngle = 0;
+                }
+
+                final double scalingFactor = computeScalingFactor(
+                        inputBitmap.getWidth(), inputBitmap.getHeight(), maxNumOfPixels);
+
+                if (rotationAngle == 0 && scalingFactor == 1) {
+                    return inputBitmap;
+                } else {
+                    Matrix matrix = new Matrix();
+                    matrix.postRotate(rotationAngle);
+                    matrix.postScale((float) scalingFactor, (float) scalingFactor);
+                    Bitmap straightenImage = Bitmap.createBitmap(
+                            inputBitmap,
+                            0, 0,   // x and y coord of the first pixel in source image
+                            inputBitmap.getWidth(), inputBitmap.getHeight(),
+                            matrix, true);
+                    if (straightenImage != inputBitmap) {
+                        inputBitmap.recycle();  // release memory as soon as possible
+                    }
+                    return straightenImage;
                 }
-                return straightenImage;
             } else {
                 Log.e(TAG, "Returning null because input image cannot be decoded.");
                 return null;
@@ -77,6 +125,47 @@ public abstract class ImagesHelper {
         }
     }
 
+    /**
+     * Computes the value for {@link BitmapFactory.Options#inSampleSize}, i.e., the
+     * largest power of 2 such that the sampled image has <strong>at least</strong>
+     * the given number of pixels (further reduction is left to the final scaling,
+     * which gives a better quality than a coarser sampling).
+     *
+     * @param widthPx        The width of the image to decode.
+     * @param heightPx       The height of the image to decode.
+     * @param maxNumOfPixels The maximum number of pixels of the output image.
+     * @return the sample size to use for decoding the image.
+     */
+    private static int computeSampleSize(int widthPx, int heightPx, int maxNumOfPixels) {
+        int sampleSize = 1;
+        if (widthPx > 0 && heightPx > 0 && maxNumOfPixels > 0) {
+            while ((long) (widthPx / (2 * sampleSize)) * (heightPx / (2 * sampleSize)) >= maxNumOfPixels) {
+                sampleSize *= 2;
+            }
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Computes the scaling factor such that the image will have at most the
+     * provided number of pixels (intended as outputWidthPx * outputHeightPx).
+     *
+     * @param widthPx        The width of the input image.
+     * @param heightPx       The height of the input image.
+     * @param maxNumOfPixels The maximum number of pixels of the output image.
+     * @return the scaling factor (1 if the image must not be scaled, because
+     * images are never enlarged).
+     */
+    private static double computeScalingFactor(int widthPx, int heightPx, int maxNumOfPixels) {
+        if (maxNumOfPixels > 0 && widthPx > 0 && heightPx > 0) {
+            final double compressionRatio = Math.sqrt(maxNumOfPixels / ((double) widthPx * heightPx));
+            assert compressionRatio > 0;
+            return Math.min(compressionRatio, 1);
+        } else {
+            return 1;
+        }
+    }
+
     /**
      * Compresses the given input image such that it will have at most the
      * provided number of pixels (intended as outputWidthPx * outputHeightPx)
@@ -108,8 +197,10 @@ public abstract class ImagesHelper {
                 final int outputImageWidth = (int) Math.round(compressionRatio * inputImageWidth);
                 final int outputImageHeight = (int) Math.round(compressionRatio * inputImageHeight);
 
-                // Actual compression
-                outputBitmap = Bitmap.createScaledBitmap(inputBitmap, outputImageWidth, outputImageHeight, true);
+                // Actual compression (skipped if rounding leaves the size unchanged)
+                if (outputImageWidth != inputImageWidth || outputImageHeight != inputImageHeight) {
+                    outputBitmap = Bitmap.createScaledBitmap(inputBitmap, outputImageWidth, outputImageHeight, true);
+                }
             }
         }
 
@@ -132,19 +223,197 @@ public abstract class ImagesHelper {
                 matrix, true);
     }
 
+    /**
+     * Enumeration of the renditions (i.e., the sizes) in which pictures are saved.
+     * Smaller renditions are shown first, and larger ones are loaded only when needed.
+     */
+    public enum Rendition {
+        /**
+         * Small picture (few KB), saved together with the preview of the report.
+         */
+        THUMBNAIL(160 * 160, 60),
+
+        /**
+         * Picture shown in the details of the report.
+         */
+        MEDIUM(640 * 480, 75),
+
+        /**
+         * Picture at full resolution, shown on demand only.
+         */
+        FULL(SerializableBitmap.MAX_NUM_OF_PIXELS, SerializableBitmap.DEFAULT_QUALITY);
+
+        /**
+         * The maximum number of pixels (intended as widthPx * heightPx) of the rendition.
+         */
+        private final int maxNumOfPixels;
+
+        /**
+         * The quality (in the range 0..100) of the encoded rendition.
+         */
+        private final int quality;
+
+        Rendition(int maxNumOfPixels, int quality) {
+            this.maxNumOfPixels = maxNumOfPixels;
+            this.quality = quality;
+        }
+
+        public int getMaxNumOfPixels() {
+            return maxNumOfPixels;
+        }
+
+        public int getQuality() {
+            return quality;
+        }
+    }
+
+    /**
+     * Class containing all the {@link Rendition}s of a picture,
+     * created at once when the picture is taken.
+     */
+    public static class PictureRenditions implements Serializable {
+
+        private final SerializableBitmap thumbnail;
+        private final SerializableBitmap medium;
+        private final SerializableBitmap full;
+
+        /**
+         * Constructor.
+         *
+         * @param bitmap The picture for which the {@link Rendition}s must be created
+         *               (null for an empty image).
+         */
+        public PictureRenditions(Bitmap bitmap) {
+            this.full = new SerializableBitmap(bitmap, Rendition.FULL);
+            this.medium = new SerializableBitmap(bitmap, Rendition.MEDIUM);
+            this.thumbnail = new SerializableBitmap(bitmap, Rendition.THUMBNAIL);
+        }
+
+        /**
+         * @param rendition The desired {@link Rendition}.
+         * @return the picture in the given {@link Rendition}.
+         */
+        @NonNull
+        public SerializableBitmap get(@NonNull Rendition rendition) {
+            switch (Objects.requireNonNull(rendition)) {
+                case THUMBNAIL:
+                    return thumbnail;
+                case MEDIUM:
+                    return medium;
+                case FULL:
+                default:
+                    return full;
+            }
+        }
+    }
+
     /**
      * Wrapper for {@link Bitmap}s, to make them {@link Serializable}.
-     * The image is serialized with the Base64 encoding.
+     * The image is encoded according to an {@link Encoding} and then
+     * serialized with the Base64 encoding.
      */
     public static class SerializableBitmap implements Serializable {
 
+        /**
+         * The maximum number of pixels (intended as widthPx * heightPx)
+         * of the serialized image.
+         */
+        public static final int MAX_NUM_OF_PIXELS = 1_000_000;
+
+        /**
+         * The default {@link Encoding} used to serialize pictures.
+         */
+        public static final Encoding DEFAULT_ENCODING = Encoding.JPEG;
+
+        /**
+         * The default quality (in the range 0..100) used for lossy {@link Encoding}s.
+         */
+        public static final int DEFAULT_QUALITY = 80;
+
+        /**
+         * Enumeration of the supported encodings for the picture.
+         */
+        public enum Encoding {
+            /**
+             * Raw pixels, as copied by {@link Bitmap#copyPixelsToBuffer(java.nio.Buffer)}.
+             * This is the legacy format: instances serialized before the introduction
+             * of {@link #encodingName} are in this format.
+             */
+            RAW(null),
+
+            /**
+             * JPEG compression.
+             */
+            JPEG(Bitmap.CompressFormat.JPEG),
+
+            /**
+             * WebP compression.
+             */
+            @SuppressWarnings("deprecation")    // WEBP_LOSSY is available from API 30 only
+            WEBP(Bitmap.CompressFormat.WEBP);
+
+            /**
+             * The {@link Bitmap.CompressFormat} for this encoding, or null
+             * if the encoding is {@link #RAW}.
+             */
+            private final Bitmap.CompressFormat compressFormat;
+
+            Encoding(Bitmap.CompressFormat compressFormat) {
+                this.compressFormat = compressFormat;
+            }
+        }
+
         private String base64Bitmap;
         private int widthPx;
         private int heightPx;
         private String bitmapConfigName;
 
+        /**
+         * The name of the {@link Encoding} of {@link #base64Bitmap}.
+         * If null, the picture was serialized with the legacy
+         * {@link Encoding#RAW} format.
+         */
+        private String encodingName;
+
+        /**
+         * Like {@link #SerializableBitmap(Bitmap, Encoding, int)}, but uses
+         * {@link #DEFAULT_ENCODING} and {@link #DEFAULT_QUALITY}.
+         */
         public SerializableBitmap(Bitmap bitmap) {
-            final int MAX_NUM_OF_PIXELS = 1_000_000;
+            this(bitmap, DEFAULT_ENCODING, DEFAULT_QUALITY);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param bitmap   The {@link Bitmap} to serialize (null for an empty image).
+         * @param encoding The {@link Encoding} to use for the picture.
+         * @param quality  The quality (in the range 0..100) of the encoded picture,
+         *                 ignored for lossless encodings.
+         */
+        public SerializableBitmap(Bitmap bitmap, @NonNull Encoding encoding, int quality) {
+            this(bitmap, encoding, quality, MAX_NUM_OF_PIXELS);
+        }
+
+        /**
+         * Creates an instance for the given {@link Rendition}, with {@link #DEFAULT_ENCODING}.
+         *
+         * @param bitmap    The {@link Bitmap} to serialize (null for an empty image).
+         * @param rendition The desired {@link Rendition}.
+         */
+        public SerializableBitmap(Bitmap bitmap, @NonNull Rendition rendition) {
+            this(bitmap, DEFAULT_ENCODING,
+                    Objects.requireNonNull(rendition).getQuality(), rendition.getMaxNumOfPixels());
+        }
+
+        /**
+         * See parameter descriptions in {@link #SerializableBitmap(Bitmap, Encoding, int)}.
+         *
+         * @param maxNumOfPixels The maximum number of pixels (intended as widthPx * heightPx)
+         *                       of the serialized image, which is never greater than
+         *                       {@link #MAX_NUM_OF_PIXELS}.
+         */
+        private SerializableBitmap(Bitmap bitmap, @NonNull Encoding encoding, int quality, int maxNumOfPixels) {
             if (bitmap == null) {
                 // Create empty bitmap
                 // Adapted from https://stackoverflow.com/a/5664047/17402378
@@ -153,16 +422,43 @@ public abstract class ImagesHelper {
                 Bitmap.Config conf = Bitmap.Config.ARGB_8888; // see other conf types
                 bitmap = Bitmap.createBitmap(width, height, conf); // this creates a MUTABLE bitmap
             }
-            Bitmap compressedBitmap = compressImageAndGet(bitmap, MAX_NUM_OF_PIXELS);
-            this.base64Bitmap = Base64Helper.encode(convertToByteArray(compressedBitmap));
+            if (quality < 0 || quality > 100) {
+                throw new IllegalArgumentException("Quality must be in the range 0..100, found " + quality);
+            }
+            Bitmap compressedBitmap = compressImageAndGet(bitmap, Math.min(maxNumOfPixels, MAX_NUM_OF_PIXELS));
+            this.base64Bitmap = encoding == Encoding.RAW
+                    ? Base64Helper.encode(convertToByteArray(compressedBitmap))
+                    : encodeToBase64(compressedBitmap, encoding, quality);
             this.bitmapConfigName = compressedBitmap.getConfig().name();  // adapted from https://stackoverflow.com/a/34165515/17402378
             this.widthPx = compressedBitmap.getWidth();
             this.heightPx = compressedBitmap.getHeight();
+            this.encodingName = Objects.requireNonNull(encoding).name();
+            if (compressedBitmap != bitmap) {
+                compressedBitmap.recycle();     // not needed anymore, once serialized
+            }
         }
 
         private SerializableBitmap() {  // needed no-args constructor
         }
 
+        /**
+         * Restores an instance from its representation as a tree of {@link Map}s
+         * (see {@link DBEntityCodec}). Missing fields keep their default values.
+         *
+         * @param tree The representation of the instance, having field names as keys.
+         * @return the restored instance.
+         */
+        @NonNull
+        public static SerializableBitmap fromMap(@NonNull Map<String, Object> tree) {
+            SerializableBitmap serializableBitmap = new SerializableBitmap();
+            serializableBitmap.base64Bitmap = DBEntityCodec.getString(tree, "base64Bitmap");
+            serializableBitmap.widthPx = DBEntityCodec.getInt(tree, "widthPx");
+            serializableBitmap.heightPx = DBEntityCodec.getInt(tree, "heightPx");
+            serializableBitmap.bitmapConfigName = DBEntityCodec.getString(tree, "bitmapConfigName");
+            serializableBitmap.encodingName = DBEntityCodec.getString(tree, "encodingName");
+            return serializableBitmap;
+        }
+
         public String getBase64Bitmap() {
             return base64Bitmap;
         }
@@ -179,14 +475,66 @@ public abstract class ImagesHelper {
             return bitmapConfigName;
         }
 
+        public String getEncodingName() {
+            return encodingName;
+        }
+
+        /**
+         * @return the {@link Encoding} of this instance.
+         */
+        @Exclude    // Firebase tries to serialize every getter
+        @NonNull
+        public Encoding getEncoding() {
+            return encodingName == null ? Encoding.RAW : Encoding.valueOf(encodingName);
+        }
+
         @Exclude    // Firebase tries to serialize every getter
         public Bitmap getBitmap() {
-            byte[] imageAsByteArray = Base64Helper.decode(base64Bitmap);
-            Bitmap.Config configBmp = Bitmap.Config.valueOf(bitmapConfigName);
-            Bitmap bitmap_tmp = Bitmap.createBitmap(widthPx, heightPx, configBmp);
-            ByteBuffer buffer = ByteBuffer.wrap(imageAsByteArray);
-            bitmap_tmp.copyPixelsFromBuffer(buffer);
-            return bitmap_tmp;
+            if (getEncoding() == Encoding.RAW) {
+                byte[] imageAsByteArray = Base64Helper.decode(base64Bitmap);
+                Bitmap.Config configBmp = Bitmap.Config.valueOf(bitmapConfigName);
+                Bitmap bitmap_tmp = Bitmap.createBitmap(widthPx, heightPx, configBmp);
+                ByteBuffer buffer = ByteBuffer.wrap(imageAsByteArray);
+                bitmap_tmp.copyPixelsFromBuffer(buffer);
+                return bitmap_tmp;
+            } else {
+                // The picture is decoded while it is read from the Base64 string,
+                //  without copying the whole picture in a byte array
+                Bitmap bitmap = null;
+                try (InputStream inputStream = Base64Helper.newDecoder(base64Bitmap)) {
+                    bitmap = BitmapFactory.decodeStream(inputStream);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error reading the " + encodingName + " picture", e);
+                }
+                if (bitmap == null) {
+                    Log.e(TAG, "Unable to decode the " + encodingName + " picture");
+                }
+                return bitmap;
+            }
+        }
+
+        /**
+         * Writes the picture of this instance compressed according to its {@link Encoding},
+         * or compressed with {@link #DEFAULT_ENCODING} if this instance uses the legacy
+         * {@link Encoding#RAW} format, to the given {@link OutputStream}.
+         * The written bytes can be decoded with {@link BitmapFactory}.
+         *
+         * @param outputStream The destination {@link OutputStream} (not closed by this method).
+         * @throws IOException If an I/O error occurs.
+         */
+        public void writeCompressedBytesTo(@NonNull OutputStream outputStream) throws IOException {
+            Objects.requireNonNull(outputStream);
+            if (getEncoding() == Encoding.RAW) {
+                compress(getBitmap(), DEFAULT_ENCODING, DEFAULT_QUALITY, outputStream);
+            } else {
+                try (InputStream inputStream = Base64Helper.newDecoder(base64Bitmap)) {
+                    byte[] buffer = new byte[8 * 1024];
+                    int numOfReadBytes;
+                    while ((numOfReadBytes = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, numOfReadBytes);
+                    }
+                }
+            }
         }
 
         /**
@@ -201,5 +549,39 @@ public abstract class ImagesHelper {
             bitmap.copyPixelsToBuffer(byteBuffer);
             return byteBuffer.array();
         }
+
+        /**
+         * Compresses the given {@link Bitmap} and encodes it in Base64 at the same
+         * time, so that the compressed picture is never entirely kept in memory
+         * as byte array.
+         *
+         * @param bitmap   The {@link Bitmap} instance to encode.
+         * @param encoding The (non-{@link Encoding#RAW raw}) {@link Encoding} to use.
+         * @param quality  The quality (in the range 0..100) for the encoding.
+         * @return the Base64 string for the given {@link Bitmap} compressed with the given {@link Encoding}.
+         */
+        @NonNull
+        private static String encodeToBase64(@NonNull Bitmap bitmap, @NonNull Encoding encoding, int quality) {
+            StringBuilder base64Builder = new StringBuilder();
+            try (OutputStream outputStream = Base64Helper.newEncoder(base64Builder)) {
+                compress(bitmap, encoding, quality, outputStream);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to encode the picture with encoding " + encoding, e);
+            }
+            return base64Builder.toString();
+        }
+
+        /**
+         * @param bitmap       The {@link Bitmap} instance to compress.
+         * @param encoding     The (non-{@link Encoding#RAW raw}) {@link Encoding} to use.
+         * @param quality      The quality (in the range 0..100) for the encoding.
+         * @param outputStream The {@link OutputStream} where the compressed picture is written.
+         */
+        private static void compress(@NonNull Bitmap bitmap, @NonNull Encoding encoding, int quality,
+                                     @NonNull OutputStream outputStream) {
+            if (!bitmap.compress(Objects.requireNonNull(encoding.compressFormat), quality, outputStream)) {
+                throw new IllegalStateException("Unable to compress the picture with encoding " + encoding);
+            }
+        }
     }
 }
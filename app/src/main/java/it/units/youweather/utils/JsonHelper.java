@@ -3,7 +3,11 @@ package it.units.youweather.utils;
 import androidx.annotation.NonNull;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.Objects;
 
@@ -44,6 +48,45 @@ public abstract class JsonHelper {
                 Objects.requireNonNull(jsonEncoded), Objects.requireNonNull(deserializedType));
     }
 
+    /**
+     * Converts a JSON serialized object (read from the given {@link Reader})
+     * into the Java object. The object is parsed while it is read, without
+     * buffering the whole JSON {@link String}. The {@link Reader} is not closed
+     * by this method.
+     *
+     * @param <T>               The generic type for the Java object.
+     * @param jsonReader        The {@link Reader} from which the JSON encoding is read.
+     * @param deserializedClass The {@link Class} for the deserialized object.
+     * @return The deserialized object.
+     * @throws IOException If an I/O error occurs or the JSON encoding is not valid.
+     */
+    public static <T> T fromJson(@NonNull Reader jsonReader, @NonNull Class<T> deserializedClass)
+            throws IOException {
+        return fromJson(jsonReader, (Type) Objects.requireNonNull(deserializedClass));
+    }
+
+    /**
+     * Like {@link #fromJson(Reader, Class)}, but for a generic {@link Type}.
+     *
+     * @param <T>              The generic type for the Java object.
+     * @param jsonReader       The {@link Reader} from which the JSON encoding is read.
+     * @param deserializedType The {@link Type} for the deserialized object.
+     * @return The deserialized object.
+     * @throws IOException If an I/O error occurs or the JSON encoding is not valid.
+     */
+    public static <T> T fromJson(@NonNull Reader jsonReader, @NonNull Type deserializedType)
+            throws IOException {
+        try {
+            return gsonSingleInstance.fromJson(
+                    gsonSingleInstance.newJsonReader(Objects.requireNonNull(jsonReader)),
+                    Objects.requireNonNull(deserializedType));
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        } catch (JsonSyntaxException e) {
+            throw new IOException("Invalid JSON", e);
+        }
+    }
+
     /**
      * Converts a Java object into a {@link String} corresponding to its JSON
      * representation.
@@ -0,0 +1,146 @@
+package it.units.youweather.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.CancellationSignal;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import it.units.youweather.entities.storage.WeatherReportPicture;
+import it.units.youweather.utils.functionals.Consumer;
+import it.units.youweather.utils.storage.DBEntity;
+import it.units.youweather.utils.storage.DBHelper;
+
+/**
+ * Loads the pictures saved as {@link WeatherReportPicture} from the database
+ * lazily, i.e., the picture is downloaded only when the {@link View} that
+ * has to show it actually becomes visible on the screen.
+ * Loaded pictures are saved in the {@link PictureCache}, which is checked
+ * before downloading them.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class LazyPictureLoader {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = LazyPictureLoader.class.getSimpleName();
+
+    /**
+     * Waits for the given {@link View} to become visible on the screen and then
+     * downloads the {@link WeatherReportPicture} having the given key.
+     * If the {@link View} is detached from the window before becoming visible,
+     * nothing is downloaded; if it is detached while the picture is downloading,
+     * the download is aborted.
+     *
+     * @param targetView The {@link View} that will show the picture.
+     * @param pictureKey The key of the {@link WeatherReportPicture} in the database.
+     * @param cacheKey   The key of the picture in the {@link PictureCache}.
+     * @param onLoaded   The {@link Consumer} for the loaded picture, executed on the UI thread.
+     * @param onError    The {@link Runnable} to be run in case of error (if non-null).
+     */
+    public static void loadWhenVisible(@NonNull View targetView,
+                                       @NonNull String pictureKey,
+                                       @NonNull String cacheKey,
+                                       @NonNull Consumer<Bitmap> onLoaded,
+                                       @Nullable Runnable onError) {
+        Objects.requireNonNull(targetView);
+        Objects.requireNonNull(pictureKey);
+        Objects.requireNonNull(cacheKey);
+        Objects.requireNonNull(onLoaded);
+
+        final AtomicBoolean loadingStarted = new AtomicBoolean(false);
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        final ViewTreeObserver.OnPreDrawListener[] visibilityListener = new ViewTreeObserver.OnPreDrawListener[1];  // array to make it final
+
+        final Runnable startLoadingIfVisible = () -> {
+            if (isVisibleOnScreen(targetView) && loadingStarted.compareAndSet(false, true)) {
+                targetView.getViewTreeObserver().removeOnPreDrawListener(visibilityListener[0]);
+                Dispatchers.io().execute(() -> load(targetView, pictureKey, cacheKey, onLoaded, onError, cancellationSignal));
+            }
+        };
+
+        visibilityListener[0] = () -> {
+            startLoadingIfVisible.run();
+            return true;    // proceed with the current drawing pass
+        };
+
+        targetView.getViewTreeObserver().addOnPreDrawListener(visibilityListener[0]);
+        targetView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View view) {
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View view) {
+                view.getViewTreeObserver().removeOnPreDrawListener(visibilityListener[0]);
+                view.removeOnAttachStateChangeListener(this);
+                cancellationSignal.cancel();
+            }
+        });
+        targetView.post(startLoadingIfVisible); // the view might be already visible
+    }
+
+    /**
+     * @return true if the given {@link View} is at least partially visible on the screen.
+     */
+    private static boolean isVisibleOnScreen(@NonNull View view) {
+        return view.isShown() && view.getGlobalVisibleRect(new Rect());
+    }
+
+    /**
+     * Gets the picture from the {@link PictureCache} or, if absent, downloads it
+     * and passes it to the given {@link Consumer} on the UI thread.
+     */
+    private static void load(@NonNull View targetView,
+                             @NonNull String pictureKey,
+                             @NonNull String cacheKey,
+                             @NonNull Consumer<Bitmap> onLoaded,
+                             @Nullable Runnable onError,
+                             @NonNull CancellationSignal cancellationSignal) {
+        if (cancellationSignal.isCanceled()) {
+            return;
+        }
+        Bitmap cachedBitmap = PictureCache.get(cacheKey);
+        if (cachedBitmap != null) {
+            Log.d(TAG, "Picture " + pictureKey + " found in cache");
+            targetView.post(() -> onLoaded.accept(cachedBitmap));
+            return;
+        }
+
+        Log.d(TAG, "Loading picture " + pictureKey);
+        DBEntity.registerThisClassForDB(WeatherReportPicture.class);
+        DBHelper.pullByKey(
+                pictureKey,
+                WeatherReportPicture.class,
+                weatherReportPicture -> {
+                    Bitmap bitmap = weatherReportPicture.getPicture() == null
+                            ? null
+                            : weatherReportPicture.getPicture().getBitmap();
+                    if (bitmap != null) {
+                        targetView.post(() -> onLoaded.accept(bitmap));
+                        PictureCache.put(cacheKey, weatherReportPicture.getPicture(), bitmap);
+                    } else {
+                        Log.e(TAG, "Invalid picture " + pictureKey);
+                        if (onError != null) {
+                            onError.run();
+                        }
+                    }
+                },
+                () -> {
+                    Log.e(TAG, "Unable to retrieve picture " + pictureKey);
+                    if (onError != null) {
+                        onError.run();
+                    }
+                },
+                cancellationSignal);
+    }
+}
@@ -9,6 +9,7 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.util.Log;
 
 import androidx.annotation.IdRes;
@@ -18,7 +19,9 @@ import androidx.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.URLEncoder;
 import java.util.Objects;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import it.units.youweather.R;
@@ -26,8 +29,10 @@ import it.units.youweather.entities.City;
 import it.units.youweather.entities.Forecast;
 import it.units.youweather.entities.forecast_fields.Coordinates;
 import it.units.youweather.utils.functionals.Consumer;
-import it.units.youweather.utils.http.HTTPRequest;
-import it.units.youweather.utils.http.HTTPResponse;
+import it.units.youweather.utils.geocoding.ForwardGeocodingCache;
+import it.units.youweather.utils.geocoding.Gazetteer;
+import it.units.youweather.utils.geocoding.ReverseGeocodingCache;
+import it.units.youweather.utils.http.HTTPClient;
 
 /**
  * This class supports geo-location features, like getting
@@ -152,7 +157,8 @@ public class LocationHelper {
 
         final AtomicBoolean isStillListening = new AtomicBoolean(true);
 
-        Thread listener = new Thread(() -> {
+        // Dedicated thread, because it waits for changes as long as the listener is registered
+        Thread listener = LOCATION_LISTENER_THREAD_FACTORY.newThread(() -> {
             while (isStillListening.get()) { // loop until the listener is still listening for changes
                 synchronized (lock) {
                     while (Objects.equals(lastUpdateOfCurrentLocationContainer, userCurrentLocation)) {
@@ -260,6 +266,12 @@ public class LocationHelper {
 
     private static final String OPEN_WEATHER_MAP_API_KEY;
 
+    /**
+     * {@link java.util.concurrent.ThreadFactory} for the threads of position change listeners.
+     */
+    private static final Dispatchers.NamedThreadFactory LOCATION_LISTENER_THREAD_FACTORY =
+            new Dispatchers.NamedThreadFactory("location-listener");
+
     static {
         String openWeatherMapApiKeyTmp;
         try {
@@ -280,7 +292,11 @@ public class LocationHelper {
      * Given the name of a city (also a draft only) the system tries to retrieve
      * all cities matching the given name.
      * The execution of this method is non-blocking: operations are performed by
-     * a separate thread.
+     * the {@link Dispatchers#io() IO executor}.
+     * If any matching cities are known locally (see {@link ForwardGeocodingCache}),
+     * they are immediately provided to the consumer, then the request is sent
+     * to the server and, if its results differ, the consumer is invoked again
+     * with the refreshed results: hence, the consumer may be invoked twice.
      *
      * @param cityName          The name of a {@link City}.
      * @param cityArrayConsumer The consumer for the array of {@link City cities}
@@ -290,30 +306,73 @@ public class LocationHelper {
     public static void getCitiesFromNameAndConsume(@NonNull String cityName,
                                                    @NonNull Consumer<City[]> cityArrayConsumer,
                                                    @NonNull Consumer<Integer> onError) {
-        new Thread(() -> {
-            String requestString = "http://api.openweathermap.org/geo/1.0/direct?"
-                    + "q=" + Objects.requireNonNull(cityName)
-                    //+ "&limit=10"
-                    + "&appid=" + OPEN_WEATHER_MAP_API_KEY;
+        getCitiesFromNameAndConsume(cityName, cityArrayConsumer, onError, null);
+    }
+
+    /**
+     * Like {@link #getCitiesFromNameAndConsume(String, Consumer, Consumer)}, but
+     * the operation can be cancelled (e.g., when the user changes the query):
+     * after the cancellation, the pending request is aborted and neither the
+     * consumer nor the error handler are invoked anymore.
+     *
+     * @param cityName           The name of a {@link City}.
+     * @param cityArrayConsumer  The consumer for the array of {@link City cities}
+     *                           matching the inserted string.
+     * @param onError            The {@link Consumer} for the {@link IdRes} of the error message (if any).
+     * @param cancellationSignal The {@link CancellationSignal} for the operation, or null
+     *                           if the operation cannot be cancelled.
+     */
+    public static void getCitiesFromNameAndConsume(@NonNull String cityName,
+                                                   @NonNull Consumer<City[]> cityArrayConsumer,
+                                                   @NonNull Consumer<Integer> onError,
+                                                   @Nullable CancellationSignal cancellationSignal) {
+        Objects.requireNonNull(cityName);
+        Objects.requireNonNull(cityArrayConsumer);
+        Objects.requireNonNull(onError);
+        Dispatchers.io().execute(() -> {
+            final City[] localCities = ForwardGeocodingCache.get(cityName);
+            if (localCities != null && !isCanceled(cancellationSignal)) {
+                cityArrayConsumer.accept(localCities);
+            }
 
             City[] cities;
             try {
-                HTTPRequest req = new HTTPRequest(requestString);
-                String responseString = new HTTPResponse(req).getResponse();
-                cities = JsonHelper.fromJson(responseString, City[].class);
+                String requestString = "http://api.openweathermap.org/geo/1.0/direct?"
+                        + "q=" + URLEncoder.encode(cityName, "UTF-8")
+                        //+ "&limit=10"
+                        + "&appid=" + OPEN_WEATHER_MAP_API_KEY;
+                cities = HTTPClient.getJson(requestString, City[].class, cancellationSignal);
+                ForwardGeocodingCache.put(cityName, cities);
             } catch (IOException e) {
+                if (isCanceled(cancellationSignal)) {
+                    return;
+                }
+                if (localCities != null) {
+                    Log.w(TAG, "Unable to refresh cities for \"" + cityName + "\"", e);
+                    return; // results already provided
+                }
                 cities = new City[0];
                 onError.accept(R.string.check_internet_connection);
             }
-            cityArrayConsumer.accept(cities);
-        }).start();
+            if (!isCanceled(cancellationSignal)
+                    && (localCities == null    // otherwise, local results are kept if the server found nothing
+                    || (cities.length > 0 && !ForwardGeocodingCache.haveSameCities(localCities, cities)))) {
+                cityArrayConsumer.accept(cities);
+            }
+        });
+    }
+
+    private static boolean isCanceled(@Nullable CancellationSignal cancellationSignal) {
+        return cancellationSignal != null && cancellationSignal.isCanceled();
     }
 
 
     /**
      * This method performs a HTTP request to the server in charge of resolving
      * coordinates into cities and returns the array of cities satisfying the
-     * request.
+     * request. Coordinates are first resolved offline by the {@link Gazetteer}
+     * (if available), then by the server; results of the server are cached
+     * (see {@link ReverseGeocodingCache}).
      * <strong>Important</strong>: this method performs networking operation,
      * so, it cannot be invoked from the main thread. Use method
      * {@link } instead.
@@ -325,7 +384,15 @@ public class LocationHelper {
     public static City[] getCitiesFromCoordinates(
             @NonNull Coordinates coordinates, @NonNull Consumer<Integer> onError) {
 
-        City[] resolvedCities;
+        City nearestCity = Gazetteer.findNearestCity(Objects.requireNonNull(coordinates));
+        if (nearestCity != null) {
+            return new City[]{nearestCity};
+        }
+
+        City[] resolvedCities = ReverseGeocodingCache.get(coordinates);
+        if (resolvedCities != null) {
+            return resolvedCities;
+        }
 
         // Reverse Geocoding API to resolve coordinates into cities
 
@@ -335,9 +402,11 @@ public class LocationHelper {
                 + "&appid=" + OPEN_WEATHER_MAP_API_KEY;
 
         try {
-            HTTPRequest req = new HTTPRequest(requestString);
-            final String responseString = new HTTPResponse(req).getResponse();
-            resolvedCities = JsonHelper.fromJson(responseString, City[].class);
+            resolvedCities = HTTPClient.getJson(requestString, City[].class);
+            if (resolvedCities.length > 0) {
+                ReverseGeocodingCache.put(coordinates, resolvedCities);
+                ForwardGeocodingCache.index(resolvedCities);
+            }
         } catch (IOException e) {
             Log.e(TAG, "Unable to open HTTP connection. Error is: " + e.getMessage(), e);
             onError.accept(R.string.check_internet_connection);
@@ -349,7 +418,7 @@ public class LocationHelper {
 
     /**
      * This method is similar to {@link #getCitiesFromCoordinates(Coordinates, Consumer)},
-     * but this one performs all the operation on a separate thread (this means that
+     * but this one performs all the operation on the {@link Dispatchers#io() IO executor} (this means that
      * the invoker thread returns immediately), and then, instead of returning the
      * {@link City} array, consumes it according to the given {@link Consumer}.
      * This method performs asynchronous operations.
@@ -358,15 +427,34 @@ public class LocationHelper {
      * @param cityArrayConsumer The {@link Consumer} for the array of cities matching
      *                          the request and returned by the server.
      * @param onError           The {@link Consumer} for the {@link IdRes} of the error message (if any).
-     * @return The {@link Thread} responsible for the asynchronous operations, after
-     * having <strong>already</strong> started it.
+     * @return The {@link Future} of the asynchronous operations, which are
+     * <strong>already</strong> submitted to the {@link Dispatchers#io() IO executor}.
      */
-    public static Thread getCitiesFromCoordinatesAndConsume(
+    public static Future<?> getCitiesFromCoordinatesAndConsume(
             @NonNull Coordinates coordinates, @NonNull Consumer<City[]> cityArrayConsumer, @NonNull Consumer<Integer> onError) {
-        Thread t = new Thread(() -> Objects.requireNonNull(cityArrayConsumer)
+        return Dispatchers.io().submit(() -> Objects.requireNonNull(cityArrayConsumer)
                 .accept(getCitiesFromCoordinates(coordinates, onError)));
-        t.start();
-        return t;
+    }
+
+    /**
+     * Like {@link #getCitiesFromCoordinatesAndConsume(Coordinates, Consumer, Consumer)},
+     * but returns a {@link Promise}.
+     *
+     * @param coordinates Coordinates.
+     * @return the {@link Promise} of the array of cities matching the request, rejected
+     * with an {@link IOException} if the server cannot be reached.
+     */
+    @NonNull
+    public static Promise<City[]> getCitiesFromCoordinatesAsync(@NonNull Coordinates coordinates) {
+        Objects.requireNonNull(coordinates);
+        return Promise.submit(Dispatchers.io(), () -> {
+            final AtomicBoolean anyErrors = new AtomicBoolean(false);
+            City[] cities = getCitiesFromCoordinates(coordinates, errorMsgIdRes -> anyErrors.set(true));
+            if (anyErrors.get()) {
+                throw new IOException("Unable to resolve " + coordinates);
+            }
+            return cities;
+        });
     }
 
     /**
@@ -376,6 +464,8 @@ public class LocationHelper {
      * <strong>The operation is asynchronous</strong>: when completed,
      * the given {@link Consumer} will consumes the result.
      * <br/>
+     * Forecasts are cached for a short time (see {@link ForecastCache}).
+     * <br/>
      * This method does not throw any exceptions, but, if they happened
      * while retrieving the data, the given handler will be executed.
      *
@@ -389,20 +479,72 @@ public class LocationHelper {
             @NonNull Coordinates coordinates,
             @NonNull Consumer<Forecast> consumer,
             @NonNull Consumer<IOException> exceptionHandler) {
-        new Thread(() -> {
-            String requestString = "http://api.openweathermap.org/data/2.5/weather?"
-                    + "lat=" + Objects.requireNonNull(coordinates).getLat()
-                    + "&lon=" + coordinates.getLon()
-                    + "&appid=" + OPEN_WEATHER_MAP_API_KEY;
+        getForecastForCoordinates(coordinates, consumer, exceptionHandler, null);
+    }
+
+    /**
+     * Like {@link #getForecastForCoordinates(Coordinates, Consumer, Consumer)}, but
+     * the request is aborted as soon as the given {@link CancellationSignal} is
+     * cancelled: in this case, neither the given {@link Consumer} nor the given
+     * exception handler are executed.
+     * If other requests for the same forecast are waiting for the aborted download
+     * (see {@link ForecastCache}), they get an {@link java.io.InterruptedIOException}.
+     *
+     * @param coordinates        {@link Coordinates} for the place for which you want to know
+     *                           to have the {@link Forecast weather forecast}.
+     * @param consumer           The {@link Consumer} for the {@link Forecast}.
+     * @param exceptionHandler   The {@link Consumer exception handler} for the
+     *                           eventually thrown exception.
+     * @param cancellationSignal The {@link CancellationSignal} for the request, or null
+     *                           if the request cannot be cancelled.
+     */
+    public static void getForecastForCoordinates(
+            @NonNull Coordinates coordinates,
+            @NonNull Consumer<Forecast> consumer,
+            @NonNull Consumer<IOException> exceptionHandler,
+            @Nullable CancellationSignal cancellationSignal) {
+        Objects.requireNonNull(coordinates);
+        Dispatchers.io().execute(() -> {
+            if (isCanceled(cancellationSignal)) {
+                return;
+            }
             try {
-                HTTPRequest req = new HTTPRequest(requestString);
-                String responseString = new HTTPResponse(req).getResponse();
-                Objects.requireNonNull(consumer)
-                        .accept(JsonHelper.fromJson(responseString, Forecast.class));
+                Forecast forecast = ForecastCache.get(
+                        coordinates,
+                        coordinates_ -> HTTPClient.getJson(
+                                "http://api.openweathermap.org/data/2.5/weather?"
+                                        + "lat=" + coordinates_.getLat()
+                                        + "&lon=" + coordinates_.getLon()
+                                        + "&appid=" + OPEN_WEATHER_MAP_API_KEY,
+                                Forecast.class,
+                                cancellationSignal));
+                if (!isCanceled(cancellationSignal)) {
+                    Objects.requireNonNull(consumer).accept(forecast);
+                }
             } catch (IOException e) {
-                Objects.requireNonNull(exceptionHandler).accept(e);
+                if (!isCanceled(cancellationSignal)) {
+                    Objects.requireNonNull(exceptionHandler).accept(e);
+                }
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Like {@link #getForecastForCoordinates(Coordinates, Consumer, Consumer)},
+     * but returns a {@link Promise}.
+     *
+     * @param coordinates {@link Coordinates} for the place for which you want to know
+     *                    to have the {@link Forecast weather forecast}.
+     * @return the {@link Promise} of the {@link Forecast}, rejected with an
+     * {@link IOException} in case of errors. Cancelling the {@link Promise} aborts the request.
+     */
+    @NonNull
+    public static Promise<Forecast> getForecastForCoordinatesAsync(@NonNull Coordinates coordinates) {
+        final Promise<Forecast> promise = new Promise<>();
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        promise.onCancel(cancellationSignal::cancel);
+        getForecastForCoordinates(coordinates, promise::resolve, promise::reject, cancellationSignal);
+        return promise;
     }
 
 }
@@ -0,0 +1,191 @@
+package it.units.youweather.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Two-tier cache for the pictures of the weather reports.
+ * Decoded pictures are kept in memory (in a least-recently-used cache,
+ * whose size is limited by the number of bytes of the cached {@link Bitmap}s),
+ * while the compressed pictures are saved on the disk (in the cache directory
+ * of the application), so that they survive to the eviction from the memory
+ * cache and to the restart of the application.
+ * Methods of this class accessing the disk must <strong>not</strong> be
+ * invoked from the main thread.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class PictureCache {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = PictureCache.class.getSimpleName();
+
+    /**
+     * The maximum number of bytes for the memory cache.
+     */
+    private static final int MEMORY_CACHE_MAX_BYTES =
+            (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+
+    /**
+     * The maximum number of bytes for the disk cache.
+     */
+    private static final long DISK_CACHE_MAX_BYTES = 50L * 1024 * 1024;   // 50 MB
+
+    /**
+     * The name of the directory (in the cache directory of the application)
+     * for the disk cache.
+     */
+    private static final String DISK_CACHE_DIRECTORY_NAME = "report_pictures";
+
+    /**
+     * The memory cache of decoded pictures.
+     */
+    private static final LruCache<String, Bitmap> memoryCache =
+            new LruCache<String, Bitmap>(MEMORY_CACHE_MAX_BYTES) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getByteCount();
+                }
+            };
+
+    /**
+     * Mutex for operations on the disk cache.
+     */
+    private static final Object diskCacheLock = new Object();
+
+    /**
+     * @param reportKey The key of the report to which the picture belongs.
+     * @param rendition The {@link ImagesHelper.Rendition} of the picture.
+     * @return the key to use in this cache for the given picture.
+     */
+    @NonNull
+    public static String getKey(@NonNull String reportKey, @NonNull ImagesHelper.Rendition rendition) {
+        return Objects.requireNonNull(reportKey) + "_" + Objects.requireNonNull(rendition).name();
+    }
+
+    /**
+     * @param key The key of the picture (see {@link #getKey(String, ImagesHelper.Rendition)}).
+     * @return the picture from the memory cache, or null if it is absent.
+     * This method can be invoked from the main thread.
+     */
+    @Nullable
+    public static Bitmap getFromMemory(@NonNull String key) {
+        return memoryCache.get(Objects.requireNonNull(key));
+    }
+
+    /**
+     * @param key The key of the picture (see {@link #getKey(String, ImagesHelper.Rendition)}).
+     * @return the picture from the memory cache or, if absent, from the disk
+     * cache, or null if it is absent from both.
+     */
+    @Nullable
+    public static Bitmap get(@NonNull String key) {
+        Bitmap bitmap = getFromMemory(key);
+        if (bitmap == null) {
+            synchronized (diskCacheLock) {
+                File cachedFile = getCacheFile(key);
+                if (cachedFile.exists()) {
+                    bitmap = BitmapFactory.decodeFile(cachedFile.getPath());
+                    if (bitmap != null) {
+                        //noinspection ResultOfMethodCallIgnored    // only used to evict the least recently used files
+                        cachedFile.setLastModified(Timing.getMillisSinceEpoch());
+                        memoryCache.put(key, bitmap);
+                    } else {
+                        Log.w(TAG, "Invalid cached file for key " + key + ", deleting it");
+                        deleteFile(cachedFile);
+                    }
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Saves a picture in the cache.
+     *
+     * @param key     The key of the picture (see {@link #getKey(String, ImagesHelper.Rendition)}).
+     * @param picture The picture to save.
+     * @param bitmap  The decoded picture.
+     */
+    public static void put(@NonNull String key,
+                           @NonNull ImagesHelper.SerializableBitmap picture,
+                           @NonNull Bitmap bitmap) {
+        memoryCache.put(Objects.requireNonNull(key), Objects.requireNonNull(bitmap));
+        synchronized (diskCacheLock) {
+            File cachedFile = getCacheFile(key);
+            try (FileOutputStream outputStream = new FileOutputStream(cachedFile)) {
+                Objects.requireNonNull(picture).writeCompressedBytesTo(outputStream);
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to save the picture with key " + key + " on disk", e);
+                deleteFile(cachedFile);
+            }
+            trimDiskCache();
+        }
+    }
+
+    /**
+     * Deletes the least recently used files of the disk cache, until its size
+     * is not greater than {@link #DISK_CACHE_MAX_BYTES}.
+     */
+    private static void trimDiskCache() {
+        File[] cachedFiles = getDiskCacheDirectory().listFiles();
+        if (cachedFiles != null) {
+            long totalSize = 0;
+            for (File f : cachedFiles) {
+                totalSize += f.length();
+            }
+            if (totalSize > DISK_CACHE_MAX_BYTES) {
+                Arrays.sort(cachedFiles, new Comparator<File>() {
+                    @Override
+                    public int compare(File a, File b) {
+                        return Long.compare(a.lastModified(), b.lastModified());
+                    }
+                });
+                for (int i = 0; i < cachedFiles.length && totalSize > DISK_CACHE_MAX_BYTES; i++) {
+                    totalSize -= cachedFiles[i].length();
+                    deleteFile(cachedFiles[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the {@link File} of the disk cache for the given key.
+     */
+    @NonNull
+    private static File getCacheFile(@NonNull String key) {
+        return new File(getDiskCacheDirectory(), key.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+
+    /**
+     * @return the directory of the disk cache, after having created it if it did not exist.
+     */
+    @NonNull
+    private static File getDiskCacheDirectory() {
+        File directory = new File(ResourceHelper.getAppContext().getCacheDir(), DISK_CACHE_DIRECTORY_NAME);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Unable to create the directory " + directory);
+        }
+        return directory;
+    }
+
+    private static void deleteFile(@NonNull File file) {
+        if (file.exists() && !file.delete()) {
+            Log.e(TAG, "Unable to delete " + file);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package it.units.youweather.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import it.units.youweather.utils.functionals.Consumer;
+import it.units.youweather.utils.functionals.Function;
+
+/**
+ * Lightweight promise (i.e., the result of an asynchronous operation, which
+ * will be available in the future), usable on all the supported API levels
+ * (<code>java.util.concurrent.CompletableFuture</code> requires API level 24).
+ * A promise is completed only once, either {@link #resolve(Object) successfully},
+ * or {@link #reject(Throwable) with an error}, or because it was {@link #cancel() cancelled}
+ * (in this case, the error is a {@link CancellationException}).
+ * Promises can be composed (see {@link #map(Function)}, {@link #flatMap(Function)},
+ * {@link #allOf(List)}): cancelling a composed promise cancels the promises from
+ * which it is derived too, so that pending operations can be aborted.
+ * Callbacks are executed by the thread which completes the promise, or
+ * immediately by the registering thread if the promise is already completed.
+ * Instances are thread-safe.
+ *
+ * @param <T> The type of the result.
+ * @author Matteo Ferfoglia
+ */
+public class Promise<T> {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = Promise.class.getSimpleName();
+
+    private enum State {PENDING, RESOLVED, REJECTED}
+
+    private State state = State.PENDING;
+    private T value = null;
+    private Throwable error = null;
+
+    /**
+     * Callbacks to execute on completion (null after the completion).
+     */
+    private List<Runnable> completionCallbacks = new ArrayList<>(1);
+
+    /**
+     * Callbacks to execute on cancellation (null after the completion).
+     */
+    private List<Runnable> cancellationCallbacks = new ArrayList<>(1);
+
+    /**
+     * Creates a pending promise, to be completed with {@link #resolve(Object)}
+     * or {@link #reject(Throwable)}.
+     */
+    public Promise() {
+    }
+
+    /**
+     * @return a promise already resolved with the given value.
+     */
+    @NonNull
+    public static <T> Promise<T> resolved(@Nullable T value) {
+        Promise<T> promise = new Promise<>();
+        promise.resolve(value);
+        return promise;
+    }
+
+    /**
+     * @return a promise already rejected with the given error.
+     */
+    @NonNull
+    public static <T> Promise<T> rejected(@NonNull Throwable error) {
+        Promise<T> promise = new Promise<>();
+        promise.reject(error);
+        return promise;
+    }
+
+    /**
+     * Executes the given {@link Callable} with the given {@link Executor}
+     * (e.g., {@link Dispatchers#io()}).
+     *
+     * @param executor The {@link Executor}.
+     * @param callable The operation, whose result (or exception) completes the promise.
+     * @return the promise of the result of the given {@link Callable}.
+     * If the promise is cancelled before the operation starts, the operation is not executed.
+     */
+    @NonNull
+    public static <T> Promise<T> submit(@NonNull Executor executor, @NonNull Callable<T> callable) {
+        Objects.requireNonNull(callable);
+        final Promise<T> promise = new Promise<>();
+        Objects.requireNonNull(executor).execute(() -> {
+            if (!promise.isDone()) {
+                try {
+                    promise.resolve(callable.call());
+                } catch (Exception e) {
+                    promise.reject(e);
+                }
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * @param promises The promises to join.
+     * @return the promise of the list of the results of the given promises (in the same
+     * order), resolved when all the given promises are resolved, or rejected as soon as
+     * any of them is rejected (in this case, the other ones are cancelled).
+     */
+    @NonNull
+    public static <T> Promise<List<T>> allOf(@NonNull List<Promise<T>> promises) {
+        final List<Promise<T>> promisesCopy = new ArrayList<>(Objects.requireNonNull(promises));
+        final Promise<List<T>> joined = new Promise<>();
+        if (promisesCopy.isEmpty()) {
+            joined.resolve(Collections.<T>emptyList());
+            return joined;
+        }
+
+        @SuppressWarnings("unchecked")  // it will contain only values of type T
+        final T[] results = (T[]) new Object[promisesCopy.size()];
+        final AtomicInteger remaining = new AtomicInteger(promisesCopy.size());
+        for (int i = 0; i < promisesCopy.size(); i++) {
+            final int index = i;
+            promisesCopy.get(i).then(
+                    value -> {
+                        results[index] = value;
+                        if (remaining.decrementAndGet() == 0) {
+                            joined.resolve(Arrays.asList(results));
+                        }
+                    },
+                    error -> {
+                        if (joined.reject(error)) {
+                            for (Promise<T> promise : promisesCopy) {
+                                promise.cancel();
+                            }
+                        }
+                    });
+        }
+        joined.onCancel(() -> {
+            for (Promise<T> promise : promisesCopy) {
+                promise.cancel();
+            }
+        });
+        return joined;
+    }
+
+    /**
+     * Completes this promise successfully, if it is still pending.
+     *
+     * @param value The result.
+     * @return true if this promise was completed by this invocation.
+     */
+    public boolean resolve(@Nullable T value) {
+        return complete(State.RESOLVED, value, null);
+    }
+
+    /**
+     * Completes this promise with an error, if it is still pending.
+     *
+     * @param error The error.
+     * @return true if this promise was completed by this invocation.
+     */
+    public boolean reject(@NonNull Throwable error) {
+        return complete(State.REJECTED, null, Objects.requireNonNull(error));
+    }
+
+    /**
+     * Cancels this promise, if it is still pending: it is rejected with a
+     * {@link CancellationException} and the callbacks registered with
+     * {@link #onCancel(Runnable)} are executed.
+     *
+     * @return true if this promise was cancelled by this invocation.
+     */
+    public boolean cancel() {
+        final List<Runnable> callbacksToRun;
+        synchronized (this) {
+            if (state != State.PENDING) {
+                return false;
+            }
+            callbacksToRun = cancellationCallbacks;
+        }
+        if (!reject(new CancellationException())) {
+            return false;   // completed concurrently
+        }
+        runAll(callbacksToRun);
+        return true;
+    }
+
+    /**
+     * @return true if this promise is completed (resolved, rejected or cancelled).
+     */
+    public synchronized boolean isDone() {
+        return state != State.PENDING;
+    }
+
+    /**
+     * @return true if this promise was cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return state == State.REJECTED && error instanceof CancellationException;
+    }
+
+    /**
+     * Registers the callbacks for the completion of this promise.
+     *
+     * @param onSuccess The {@link Consumer} of the result.
+     * @param onError   The {@link Consumer} of the error (also in case of cancellation).
+     * @return this instance.
+     */
+    @NonNull
+    public Promise<T> then(@NonNull Consumer<T> onSuccess, @NonNull Consumer<Throwable> onError) {
+        Objects.requireNonNull(onSuccess);
+        Objects.requireNonNull(onError);
+        whenComplete(() -> {
+            final State completedState;
+            final T completedValue;
+            final Throwable completedError;
+            synchronized (this) {
+                completedState = state;
+                completedValue = value;
+                completedError = error;
+            }
+            if (completedState == State.RESOLVED) {
+                onSuccess.accept(completedValue);
+            } else {
+                onError.accept(completedError);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Registers a callback to be executed if this promise is {@link #cancel() cancelled},
+     * e.g., to abort the operation which would complete it.
+     *
+     * @param onCancel The callback.
+     * @return this instance.
+     */
+    @NonNull
+    public Promise<T> onCancel(@NonNull Runnable onCancel) {
+        Objects.requireNonNull(onCancel);
+        synchronized (this) {
+            if (state == State.PENDING) {
+                cancellationCallbacks.add(onCancel);
+                return this;
+            }
+        }
+        if (isCancelled()) {
+            onCancel.run();
+        }
+        return this;
+    }
+
+    /**
+     * @param mapper The {@link Function} to apply to the result.
+     * @return the promise of the result of the given {@link Function} applied to the result
+     * of this promise, or rejected with the same error of this promise (or with the
+     * exception thrown by the {@link Function}).
+     */
+    @NonNull
+    public <R> Promise<R> map(@NonNull Function<T, R> mapper) {
+        Objects.requireNonNull(mapper);
+        final Promise<R> mapped = new Promise<>();
+        then(value -> {
+            try {
+                mapped.resolve(mapper.apply(value));
+            } catch (RuntimeException e) {
+                mapped.reject(e);
+            }
+        }, mapped::reject);
+        mapped.onCancel(this::cancel);
+        return mapped;
+    }
+
+    /**
+     * @param mapper The {@link Function} returning the promise of the next asynchronous
+     *               operation, which depends on the result of this promise.
+     * @return the promise of the result of the promise returned by the given {@link Function},
+     * or rejected with the same error of this promise (or with the exception thrown by the
+     * {@link Function}).
+     */
+    @NonNull
+    public <R> Promise<R> flatMap(@NonNull Function<T, Promise<R>> mapper) {
+        Objects.requireNonNull(mapper);
+        final Promise<R> mapped = new Promise<>();
+        then(value -> {
+            try {
+                Promise<R> next = Objects.requireNonNull(mapper.apply(value));
+                next.then(mapped::resolve, mapped::reject);
+                mapped.onCancel(next::cancel);
+            } catch (RuntimeException e) {
+                mapped.reject(e);
+            }
+        }, mapped::reject);
+        mapped.onCancel(this::cancel);
+        return mapped;
+    }
+
+    /**
+     * @param timeout The maximum time to wait for the completion.
+     * @param unit    The {@link TimeUnit} of the timeout.
+     * @return a promise completed like this one, or rejected with a {@link TimeoutException}
+     * if this promise is not completed within the given timeout (in this case, this
+     * promise is cancelled).
+     */
+    @NonNull
+    public Promise<T> timeout(long timeout, @NonNull TimeUnit unit) {
+        final Promise<T> withTimeout = new Promise<>();
+        final ScheduledFuture<?> timer = Dispatchers.scheduler().schedule(() -> {
+            if (withTimeout.reject(new TimeoutException("Timeout after " + timeout + " " + unit))) {
+                cancel();
+            }
+        }, timeout, Objects.requireNonNull(unit));
+        then(withTimeout::resolve, withTimeout::reject);
+        withTimeout.whenComplete(() -> timer.cancel(false));
+        withTimeout.onCancel(this::cancel);
+        return withTimeout;
+    }
+
+    /**
+     * Executes the given callback when this promise is completed.
+     */
+    private void whenComplete(@NonNull Runnable callback) {
+        synchronized (this) {
+            if (state == State.PENDING) {
+                completionCallbacks.add(callback);
+                return;
+            }
+        }
+        runAll(Collections.singletonList(callback));
+    }
+
+    private boolean complete(@NonNull State newState, @Nullable T newValue, @Nullable Throwable newError) {
+        final List<Runnable> callbacksToRun;
+        synchronized (this) {
+            if (state != State.PENDING) {
+                return false;
+            }
+            state = newState;
+            value = newValue;
+            error = newError;
+            callbacksToRun = completionCallbacks;
+            completionCallbacks = null;
+            cancellationCallbacks = null;   // already taken by cancel(), if cancelled
+        }
+        runAll(callbacksToRun);
+        return true;
+    }
+
+    private static void runAll(@NonNull List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error in callback of promise", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package it.units.youweather.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Calculator of the sunrise and sunset times for given coordinates and day,
+ * based on the <a href="https://en.wikipedia.org/wiki/Sunrise_equation">sunrise
+ * equation</a> (with the corrections used by NOAA for the equation of center and
+ * the atmospheric refraction), whose error is about one minute for
+ * non-polar latitudes. No network calls are performed.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class SolarCalculator {
+
+    private static final long SECONDS_IN_A_DAY = 24 * 60 * 60;
+    private static final long MILLIS_IN_A_DAY = SECONDS_IN_A_DAY * 1_000;
+
+    /**
+     * Julian date of the Unix epoch.
+     */
+    private static final double JULIAN_DATE_OF_UNIX_EPOCH = 2440587.5;
+
+    /**
+     * Julian date of the J2000.0 epoch.
+     */
+    private static final double JULIAN_DATE_OF_J2000 = 2451545.0;
+
+    /**
+     * Altitude (degrees) of the center of the Sun at sunrise and sunset,
+     * considering the atmospheric refraction and the radius of the solar disc.
+     */
+    private static final double SUNRISE_AND_SUNSET_ALTITUDE_DEGREES = -0.833;
+
+    /**
+     * Obliquity of the ecliptic (degrees).
+     */
+    private static final double EARTH_AXIAL_TILT_DEGREES = 23.4397;
+
+    /**
+     * @param lon              The longitude, in degrees (east is positive).
+     * @param millisSinceEpoch An instant, in milliseconds since Unix epoch.
+     * @return the number of days since Unix epoch of the <i>local solar day</i>
+     * (i.e., the day from a solar midnight to the next one at the given longitude)
+     * including the given instant.
+     */
+    public static long getLocalSolarDay(double lon, long millisSinceEpoch) {
+        final double offsetMillis = lon / 360 * MILLIS_IN_A_DAY;
+        return (long) Math.floor((millisSinceEpoch + offsetMillis) / MILLIS_IN_A_DAY);
+    }
+
+    /**
+     * Computes the sunrise and sunset times.
+     * During the polar day (the Sun never sets), the sunrise and the sunset
+     * are set to the solar midnights at the beginning and at the end of the day;
+     * during the polar night (the Sun never rises), both are set to the solar noon.
+     *
+     * @param lat           The latitude, in degrees (north is positive).
+     * @param lon           The longitude, in degrees (east is positive).
+     * @param localSolarDay The {@link #getLocalSolarDay(double, long) local solar day}.
+     * @return the {@link SunriseAndSunset} for the given coordinates and day.
+     */
+    @NonNull
+    public static SunriseAndSunset compute(double lat, double lon, long localSolarDay) {
+        // Days since J2000.0 of the mean solar noon at the given longitude
+        final double meanSolarNoon =
+                localSolarDay + 0.5 - lon / 360 + JULIAN_DATE_OF_UNIX_EPOCH - JULIAN_DATE_OF_J2000;
+
+        final double solarMeanAnomaly = normalizeDegrees(357.5291 + 0.98560028 * meanSolarNoon);
+        final double m = Math.toRadians(solarMeanAnomaly);
+        final double equationOfCenter = 1.9148 * Math.sin(m) + 0.0200 * Math.sin(2 * m) + 0.0003 * Math.sin(3 * m);
+        final double eclipticLongitude =
+                Math.toRadians(normalizeDegrees(solarMeanAnomaly + equationOfCenter + 180 + 102.9372));
+        final double solarTransit = meanSolarNoon + 0.0053 * Math.sin(m) - 0.0069 * Math.sin(2 * eclipticLongitude);
+
+        final double sinDeclination = Math.sin(eclipticLongitude) * Math.sin(Math.toRadians(EARTH_AXIAL_TILT_DEGREES));
+        final double cosDeclination = Math.cos(Math.asin(sinDeclination));
+        final double latRad = Math.toRadians(lat);
+        final double cosHourAngle =
+                (Math.sin(Math.toRadians(SUNRISE_AND_SUNSET_ALTITUDE_DEGREES)) - Math.sin(latRad) * sinDeclination)
+                        / (Math.cos(latRad) * cosDeclination);
+
+        final double halfDayLength;   // fraction of day
+        if (cosHourAngle < -1) {            // polar day
+            halfDayLength = 0.5;
+        } else if (cosHourAngle > 1) {      // polar night
+            halfDayLength = 0;
+        } else {
+            halfDayLength = Math.toDegrees(Math.acos(cosHourAngle)) / 360;
+        }
+
+        return new SunriseAndSunset(
+                localSolarDay,
+                toSecondsSinceEpoch(solarTransit - halfDayLength),
+                toSecondsSinceEpoch(solarTransit + halfDayLength));
+    }
+
+    private static double normalizeDegrees(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+
+    /**
+     * @param daysSinceJ2000 Days since J2000.0.
+     * @return the corresponding number of seconds since Unix epoch.
+     */
+    private static long toSecondsSinceEpoch(double daysSinceJ2000) {
+        return Math.round((daysSinceJ2000 + JULIAN_DATE_OF_J2000 - JULIAN_DATE_OF_UNIX_EPOCH) * SECONDS_IN_A_DAY);
+    }
+
+    /**
+     * Immutable class for the sunrise and sunset times of a day.
+     */
+    public static class SunriseAndSunset {
+
+        /**
+         * The {@link #getLocalSolarDay(double, long) local solar day}.
+         */
+        private final long localSolarDay;
+
+        /**
+         * The sunrise time, in seconds since Unix epoch, UTC.
+         */
+        private final long sunriseSecondsSinceEpoch;
+
+        /**
+         * The sunset time, in seconds since Unix epoch, UTC.
+         */
+        private final long sunsetSecondsSinceEpoch;
+
+        private SunriseAndSunset(long localSolarDay, long sunriseSecondsSinceEpoch, long sunsetSecondsSinceEpoch) {
+            this.localSolarDay = localSolarDay;
+            this.sunriseSecondsSinceEpoch = sunriseSecondsSinceEpoch;
+            this.sunsetSecondsSinceEpoch = sunsetSecondsSinceEpoch;
+        }
+
+        public long getLocalSolarDay() {
+            return localSolarDay;
+        }
+
+        public long getSunriseSecondsSinceEpoch() {
+            return sunriseSecondsSinceEpoch;
+        }
+
+        public long getSunsetSecondsSinceEpoch() {
+            return sunsetSecondsSinceEpoch;
+        }
+    }
+}
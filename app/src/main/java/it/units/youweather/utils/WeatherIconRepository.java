@@ -0,0 +1,204 @@
+package it.units.youweather.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import it.units.youweather.entities.forecast_fields.WeatherCondition;
+import it.units.youweather.utils.http.HTTPClient;
+
+/**
+ * Repository for the icons of {@link WeatherCondition}s.
+ * Icons are downloaded only once: decoded icons are kept in memory
+ * (there are few distinct icons) and the downloaded PNG files are saved
+ * on the disk (in the cache directory of the application), so that they
+ * are available after the restart of the application too.
+ * Concurrent requests for the same icon are coalesced into a single download.
+ * Methods of this class which may access the disk or the network must
+ * <strong>not</strong> be invoked from the main thread.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class WeatherIconRepository {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = WeatherIconRepository.class.getSimpleName();
+
+    /**
+     * The name of the directory (in the cache directory of the application)
+     * for the icons saved on the disk.
+     */
+    private static final String DISK_CACHE_DIRECTORY_NAME = "weather_icons";
+
+    /**
+     * The memory cache of decoded icons (icon URLs as keys).
+     */
+    private static final ConcurrentMap<String, Bitmap> memoryCache = new ConcurrentHashMap<>();
+
+    /**
+     * The icons which are currently being loaded (icon URLs as keys).
+     */
+    private static final ConcurrentMap<String, FutureTask<Bitmap>> iconsBeingLoaded = new ConcurrentHashMap<>();
+
+    /**
+     * @param iconUrl The URL of the icon.
+     * @return the icon from the memory, or null if it was not loaded yet.
+     * This method can be invoked from the main thread.
+     */
+    @Nullable
+    public static Drawable getFromMemory(@NonNull String iconUrl) {
+        Bitmap icon = memoryCache.get(Objects.requireNonNull(iconUrl));
+        return icon == null ? null : toDrawable(icon);
+    }
+
+    /**
+     * @param iconUrl The URL of the icon.
+     * @return the icon, from the memory, from the disk or, if it is not
+     * available locally, downloaded.
+     * @throws IOException If the icon cannot be downloaded.
+     */
+    @NonNull
+    public static Drawable get(@NonNull String iconUrl) throws IOException {
+        return toDrawable(getBitmap(Objects.requireNonNull(iconUrl)));
+    }
+
+    /**
+     * Loads in background all the icons of {@link WeatherCondition}s,
+     * so that they will be available without waiting when needed.
+     */
+    public static void prefetchAll() {
+        Dispatchers.io().execute(() -> {
+            for (String iconUrl : WeatherCondition.getIconUrls()) {
+                try {
+                    getBitmap(iconUrl);
+                } catch (IOException e) {
+                    Log.w(TAG, "Unable to prefetch icon " + iconUrl, e);
+                }
+            }
+        });
+    }
+
+    @NonNull
+    private static Bitmap getBitmap(@NonNull String iconUrl) throws IOException {
+        Bitmap icon = memoryCache.get(iconUrl);
+        if (icon != null) {
+            return icon;
+        }
+
+        FutureTask<Bitmap> newLoadingTask = new FutureTask<>(() -> loadBitmap(iconUrl));
+        FutureTask<Bitmap> loadingTask = iconsBeingLoaded.putIfAbsent(iconUrl, newLoadingTask);
+        if (loadingTask == null) {  // no other threads are loading the icon
+            loadingTask = newLoadingTask;
+            try {
+                loadingTask.run();
+            } finally {
+                iconsBeingLoaded.remove(iconUrl, loadingTask);
+            }
+        }
+
+        try {
+            return loadingTask.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else {
+                throw new IOException("Unable to load icon " + iconUrl, cause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading icon " + iconUrl, e);
+        }
+    }
+
+    /**
+     * Loads the icon from the disk or, if absent, from the network (and saves it on the disk),
+     * then saves it in the memory cache.
+     */
+    @NonNull
+    private static Bitmap loadBitmap(@NonNull String iconUrl) throws IOException {
+        File cachedFile = getCacheFile(iconUrl);
+        byte[] iconBytes = null;
+        if (cachedFile.exists()) {
+            try (InputStream inputStream = new FileInputStream(cachedFile)) {
+                iconBytes = readAllBytes(inputStream);
+            } catch (IOException e) {
+                Log.w(TAG, "Unable to read cached icon " + cachedFile, e);
+            }
+        }
+
+        boolean downloaded = false;
+        if (iconBytes == null) {
+            Log.d(TAG, "Downloading icon " + iconUrl);
+            iconBytes = HTTPClient.get(iconUrl).getBody();
+            downloaded = true;
+        }
+
+        Bitmap icon = BitmapFactory.decodeByteArray(iconBytes, 0, iconBytes.length);
+        if (icon == null) {
+            if (!downloaded && !cachedFile.delete()) {
+                Log.e(TAG, "Unable to delete invalid cached icon " + cachedFile);
+            }
+            throw new IOException("Invalid icon " + iconUrl);
+        }
+
+        if (downloaded) {
+            try (FileOutputStream outputStream = new FileOutputStream(cachedFile)) {
+                outputStream.write(iconBytes);
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to save icon " + iconUrl + " on disk", e);
+            }
+        }
+
+        memoryCache.put(iconUrl, icon);
+        return icon;
+    }
+
+    @NonNull
+    private static byte[] readAllBytes(@NonNull InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8 * 1024];
+        int numOfReadBytes;
+        while ((numOfReadBytes = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, numOfReadBytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @NonNull
+    private static Drawable toDrawable(@NonNull Bitmap icon) {
+        // A new Drawable for each request, because Drawables hold state and must not be shared among views
+        return new BitmapDrawable(ResourceHelper.getAppContext().getResources(), icon);
+    }
+
+    /**
+     * @return the {@link File} on the disk for the given icon.
+     */
+    @NonNull
+    private static File getCacheFile(@NonNull String iconUrl) {
+        File directory = new File(ResourceHelper.getAppContext().getCacheDir(), DISK_CACHE_DIRECTORY_NAME);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Unable to create the directory " + directory);
+        }
+        return new File(directory, iconUrl.replaceAll("[^A-Za-z0-9_.-]", "_"));
+    }
+}
@@ -0,0 +1,127 @@
+package it.units.youweather.utils.geocoding;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import it.units.youweather.entities.City;
+
+/**
+ * <a href="https://en.wikipedia.org/wiki/Trie">Trie</a> of {@link City cities},
+ * used to find cities whose name starts with a given prefix.
+ * Each {@link City} is indexed by its name, by its local names, by its
+ * country and by its state, all {@link ForwardGeocodingCache#normalize(String) normalized}.
+ * This class is not thread-safe.
+ *
+ * @author Matteo Ferfoglia
+ */
+class CityTrie {
+
+    /**
+     * The root of the trie.
+     */
+    private final Node root = new Node();
+
+    /**
+     * All the indexed cities ({@link #getCityKey(City) keys of cities} as keys).
+     */
+    private final Map<String, City> indexedCities = new HashMap<>();
+
+    /**
+     * Adds the given {@link City} to the trie. If the city was already
+     * indexed, it is replaced with the given instance.
+     *
+     * @param city The {@link City} to add.
+     */
+    void add(@NonNull City city) {
+        Objects.requireNonNull(city);
+        final String cityKey = getCityKey(city);
+        if (indexedCities.put(cityKey, city) == null) {
+            addTerm(city.getName(), cityKey);
+            if (city.getLocal_names() != null) {
+                for (String localName : city.getLocal_names().values()) {
+                    addTerm(localName, cityKey);
+                }
+            }
+            addTerm(city.getCountry(), cityKey);
+            addTerm(city.getState(), cityKey);
+        }
+    }
+
+    /**
+     * @param prefix     The prefix, already {@link ForwardGeocodingCache#normalize(String) normalized}.
+     * @param maxResults The maximum number of cities to return.
+     * @return the {@link List} of cities having any indexed term which starts
+     * with the given prefix (the list is empty if no cities are found).
+     */
+    @NonNull
+    List<City> search(@NonNull String prefix, int maxResults) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+
+        Map<String, City> results = new LinkedHashMap<>();  // avoids duplicates, preserving the order
+        if (node != null) {
+            Deque<Node> nodesToVisit = new ArrayDeque<>();  // breadth-first, so shorter terms come first
+            nodesToVisit.add(node);
+            while (!nodesToVisit.isEmpty() && results.size() < maxResults) {
+                Node current = nodesToVisit.poll();
+                assert current != null;
+                for (String cityKey : current.cityKeys) {
+                    if (results.size() < maxResults) {
+                        results.put(cityKey, indexedCities.get(cityKey));
+                    }
+                }
+                nodesToVisit.addAll(current.children.values());
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private void addTerm(@Nullable String term, @NonNull String cityKey) {
+        if (term != null) {
+            String normalizedTerm = ForwardGeocodingCache.normalize(term);
+            if (!normalizedTerm.isEmpty()) {
+                Node node = root;
+                for (int i = 0; i < normalizedTerm.length(); i++) {
+                    char c = normalizedTerm.charAt(i);
+                    Node child = node.children.get(c);
+                    if (child == null) {
+                        child = new Node();
+                        node.children.put(c, child);
+                    }
+                    node = child;
+                }
+                if (!node.cityKeys.contains(cityKey)) {
+                    node.cityKeys.add(cityKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the key identifying the given {@link City} (two instances
+     * with the same key are considered the same city).
+     */
+    @NonNull
+    static String getCityKey(@NonNull City city) {
+        return city.toStringLocaleIndependent() + "@" + city.getLat() + "," + city.getLon();
+    }
+
+    /**
+     * Node of the trie.
+     */
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<String> cityKeys = new ArrayList<>(1);
+    }
+}
@@ -0,0 +1,168 @@
+package it.units.youweather.utils.geocoding;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import it.units.youweather.EnvironmentVariables;
+import it.units.youweather.entities.City;
+
+/**
+ * Cache for forward geocoding (i.e., for the resolution of names into
+ * {@link City cities}).
+ * Queries are {@link #normalize(String) normalized} before being used as
+ * keys of the cache. Moreover, all the resolved cities are indexed in a
+ * {@link CityTrie}, so that queries which were never seen before can be
+ * answered locally if they are the prefix of any known city.
+ * The cache is kept in memory only.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class ForwardGeocodingCache {
+
+    /**
+     * Separator between the name of the city and its country or state in the queries.
+     */
+    private static final String QUERY_PARTS_SEPARATOR = ",";
+
+    /**
+     * Cache of the results (normalized queries as keys), evicting the least recently used.
+     */
+    private static final Map<String, City[]> cache =
+            new LinkedHashMap<String, City[]>(16, 0.75f, true /*access order*/) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, City[]> eldest) {
+                    return size() > EnvironmentVariables.FORWARD_GEOCODING_CACHE_MAX_ENTRIES;
+                }
+            };
+
+    /**
+     * Index of all the resolved cities.
+     */
+    private static final CityTrie cityTrie = new CityTrie();
+
+    /**
+     * Mutex for accessing {@link #cache} and {@link #cityTrie}.
+     */
+    private static final Object lock = new Object();
+
+    /**
+     * @param query The query (i.e., the name of the city, optionally followed by its
+     *              state and country, comma-separated).
+     * @return the (copy of the) cached results for the given query or, if absent, the
+     * known cities matching the query, or null if no cities can be found locally.
+     */
+    @Nullable
+    public static City[] get(@NonNull String query) {
+        final String normalizedQuery = normalize(Objects.requireNonNull(query));
+        if (normalizedQuery.isEmpty()) {
+            return null;
+        }
+        final String[] queryParts = normalizedQuery.split(QUERY_PARTS_SEPARATOR);
+        synchronized (lock) {
+            City[] cachedResults = cache.get(normalizedQuery);
+            if (cachedResults != null) {
+                return cachedResults.clone();
+            }
+
+            List<City> matchingCities = new ArrayList<>();
+            for (City city : cityTrie.search(queryParts[0].trim(), Integer.MAX_VALUE)) {
+                if (matchesCountryAndState(city, queryParts)
+                        && matchingCities.size() < EnvironmentVariables.FORWARD_GEOCODING_MAX_LOCAL_RESULTS) {
+                    matchingCities.add(city);
+                }
+            }
+            return matchingCities.isEmpty() ? null : matchingCities.toArray(new City[0]);
+        }
+    }
+
+    /**
+     * Saves in the cache the results of the given query and indexes the cities.
+     *
+     * @param query  The query.
+     * @param cities The cities matching the query.
+     */
+    public static void put(@NonNull String query, @NonNull City[] cities) {
+        final String normalizedQuery = normalize(Objects.requireNonNull(query));
+        synchronized (lock) {
+            cache.put(normalizedQuery, Objects.requireNonNull(cities).clone());
+        }
+        index(cities);
+    }
+
+    /**
+     * Indexes the given cities (e.g., resolved by reverse geocoding),
+     * so that they can be found by {@link #get(String)}.
+     *
+     * @param cities The cities to index.
+     */
+    public static void index(@NonNull City[] cities) {
+        synchronized (lock) {
+            for (City city : Objects.requireNonNull(cities)) {
+                if (city != null) {
+                    cityTrie.add(city);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param cities1 An array of cities.
+     * @param cities2 Another array of cities.
+     * @return true if the given arrays contain the same cities in the same order.
+     */
+    public static boolean haveSameCities(@NonNull City[] cities1, @NonNull City[] cities2) {
+        if (Objects.requireNonNull(cities1).length != Objects.requireNonNull(cities2).length) {
+            return false;
+        }
+        for (int i = 0; i < cities1.length; i++) {
+            if (!CityTrie.getCityKey(cities1[i]).equals(CityTrie.getCityKey(cities2[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalizes the given text: diacritical marks are removed, letters are
+     * converted to lower case and consecutive whitespaces are collapsed.
+     *
+     * @param text The text to normalize.
+     * @return the normalized text.
+     */
+    @NonNull
+    public static String normalize(@NonNull String text) {
+        return Normalizer.normalize(Objects.requireNonNull(text), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .replaceAll(" ?" + QUERY_PARTS_SEPARATOR + " ?", QUERY_PARTS_SEPARATOR)
+                .trim();
+    }
+
+    /**
+     * @param city       The {@link City}.
+     * @param queryParts The {@link #normalize(String) normalized} query, split into parts
+     *                   (the first part is the name of the city).
+     * @return true if each part of the query after the first one is the prefix of the
+     * country or of the state of the given {@link City}.
+     */
+    private static boolean matchesCountryAndState(@NonNull City city, @NonNull String[] queryParts) {
+        final String country = city.getCountry() == null ? "" : normalize(city.getCountry());
+        final String state = city.getState() == null ? "" : normalize(city.getState());
+        for (int i = 1; i < queryParts.length; i++) {
+            String queryPart = queryParts[i].trim();
+            if (!country.startsWith(queryPart) && !state.startsWith(queryPart)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package it.units.youweather.utils.geocoding;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import it.units.youweather.EnvironmentVariables;
+import it.units.youweather.entities.City;
+import it.units.youweather.entities.forecast_fields.Coordinates;
+import it.units.youweather.utils.ResourceHelper;
+
+/**
+ * Offline resolver of {@link Coordinates} into the nearest {@link City},
+ * based on an optional dataset of cities bundled in the assets of the
+ * application (file {@link #GAZETTEER_ASSET_PATH}, see the README for its
+ * format). Cities are indexed in a {@link KdTree}, which is built when
+ * this class is used for the first time, and only the resolved cities are
+ * instantiated as {@link City} objects.
+ * If the dataset is absent, no cities are found and the resolution must
+ * be performed by the network service.
+ * Methods of this class may access the assets, hence they should
+ * <strong>not</strong> be invoked from the main thread.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class Gazetteer {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = Gazetteer.class.getSimpleName();
+
+    /**
+     * The path (in the assets) of the dataset of cities.
+     */
+    private static final String GAZETTEER_ASSET_PATH = "gazetteer/cities.tsv";
+
+    /**
+     * Prefix of comment lines in the dataset.
+     */
+    private static final String COMMENT_PREFIX = "#";
+
+    /**
+     * Separator of the fields in a line of the dataset.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * Separator of the local names in the corresponding field of the dataset.
+     */
+    private static final String LOCAL_NAMES_SEPARATOR = "\\|";
+
+    /**
+     * Separator between the language and the name in a local name.
+     */
+    private static final char LANGUAGE_SEPARATOR = '=';
+
+    /**
+     * The index of the cities, lazily loaded.
+     */
+    private static volatile KdTree<Place> placeKdTree = null;
+
+    /**
+     * @param coordinates The {@link Coordinates} to resolve.
+     * @return the nearest {@link City} of the dataset to the given {@link Coordinates}
+     * if it is nearer than {@link EnvironmentVariables#GAZETTEER_MAX_DISTANCE_KM},
+     * otherwise null.
+     */
+    @Nullable
+    public static City findNearestCity(@NonNull Coordinates coordinates) {
+        Objects.requireNonNull(coordinates);
+        Place nearestPlace = getPlaceKdTree().findNearest(
+                coordinates.getLat(), coordinates.getLon(), EnvironmentVariables.GAZETTEER_MAX_DISTANCE_KM);
+        return nearestPlace == null ? null : nearestPlace.toCity();
+    }
+
+    /**
+     * @return the index of the cities, after having loaded the dataset if not done yet.
+     */
+    @NonNull
+    private static KdTree<Place> getPlaceKdTree() {
+        if (placeKdTree == null) {
+            synchronized (Gazetteer.class) {
+                if (placeKdTree == null) {
+                    final long startTimeMillis = System.currentTimeMillis();
+                    placeKdTree = new KdTree<>(loadPlaces());
+                    Log.d(TAG, "Indexed " + placeKdTree.size() + " cities in "
+                            + (System.currentTimeMillis() - startTimeMillis) + " ms");
+                }
+            }
+        }
+        return placeKdTree;
+    }
+
+    /**
+     * @return the cities of the dataset (the list is empty if the dataset is absent or unreadable).
+     */
+    @NonNull
+    private static List<Place> loadPlaces() {
+        List<Place> places = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ResourceHelper.getAppContext().getAssets().open(GAZETTEER_ASSET_PATH),
+                Charset.forName("UTF-8")))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                try {
+                    places.add(parsePlace(line));
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Invalid line " + lineNumber + " of the gazetteer, ignored", e);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            Log.i(TAG, "No gazetteer available: cities will be resolved online only");
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read the gazetteer", e);
+            places.clear();
+        }
+        return places;
+    }
+
+    /**
+     * Parses a line of the dataset, having the fields: name, latitude,
+     * longitude, country, state (may be empty) and local names (optional).
+     *
+     * @param line The line to parse.
+     * @return the parsed {@link Place}.
+     * @throws IllegalArgumentException If the line is not valid.
+     */
+    @NonNull
+    private static Place parsePlace(@NonNull String line) {
+        final String[] fields = line.split(FIELD_SEPARATOR, -1);
+        final int MIN_NUMBER_OF_FIELDS = 5;
+        if (fields.length < MIN_NUMBER_OF_FIELDS) {
+            throw new IllegalArgumentException("Expected at least " + MIN_NUMBER_OF_FIELDS
+                    + " fields, found " + fields.length);
+        }
+
+        return new Place(
+                fields[0],
+                Double.parseDouble(fields[1]),      // NumberFormatException is an IllegalArgumentException
+                Double.parseDouble(fields[2]),
+                fields[3],
+                fields[4].isEmpty() ? null : fields[4],
+                fields.length > MIN_NUMBER_OF_FIELDS && !fields[5].isEmpty() ? fields[5] : null);
+    }
+
+    /**
+     * A city of the dataset, as it was read (local names are parsed only
+     * when the {@link City} is created).
+     */
+    private static class Place implements KdTree.Located {
+
+        private final String name;
+        private final double lat;
+        private final double lon;
+        private final String country;
+        @Nullable
+        private final String state;
+        @Nullable
+        private final String localNames;
+
+        private Place(@NonNull String name, double lat, double lon, @NonNull String country,
+                      @Nullable String state, @Nullable String localNames) {
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+            this.country = country;
+            this.state = state;
+            this.localNames = localNames;
+        }
+
+        @Override
+        public double getLat() {
+            return lat;
+        }
+
+        @Override
+        public double getLon() {
+            return lon;
+        }
+
+        @NonNull
+        private City toCity() {
+            Map<String, String> localNamesMap = new HashMap<>();
+            if (localNames != null) {
+                for (String localName : localNames.split(LOCAL_NAMES_SEPARATOR)) {
+                    int separatorIndex = localName.indexOf(LANGUAGE_SEPARATOR);
+                    if (separatorIndex > 0) {
+                        localNamesMap.put(localName.substring(0, separatorIndex), localName.substring(separatorIndex + 1));
+                    }
+                }
+            }
+            return new City(name, localNamesMap, lat, lon, country, state);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package it.units.youweather.utils.geocoding;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Utility class for the <a href="https://en.wikipedia.org/wiki/Geohash">geohash</a>
+ * encoding of coordinates: the surface of the Earth is recursively divided
+ * into cells, and each cell is identified by a string whose length is the
+ * precision of the cell (longer strings identify smaller cells).
+ * Near coordinates share the same geohash at low precisions.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class GeoHash {
+
+    /**
+     * The alphabet (base 32) for the geohash encoding.
+     */
+    private static final char[] BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * The number of bits encoded in each character.
+     */
+    private static final int BITS_PER_CHAR = 5;
+
+    /**
+     * The maximum supported precision.
+     */
+    public static final int MAX_PRECISION = 12;
+
+    /**
+     * Encodes the given coordinates.
+     *
+     * @param lat       The latitude (in degrees).
+     * @param lon       The longitude (in degrees).
+     * @param precision The number of characters of the geohash,
+     *                  in the range 1..{@link #MAX_PRECISION}.
+     * @return the geohash of the cell containing the given coordinates.
+     */
+    @NonNull
+    public static String encode(double lat, double lon, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "Precision must be in the range 1.." + MAX_PRECISION + ", found " + precision);
+        }
+        if (Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+            throw new IllegalArgumentException("Invalid coordinates: lat=" + lat + ", lon=" + lon);
+        }
+
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        boolean isLonBit = true;    // bits are interleaved, starting from the longitude
+
+        StringBuilder geoHash = new StringBuilder(precision);
+        int currentChar = 0;
+        int numOfBitsInCurrentChar = 0;
+        while (geoHash.length() < precision) {
+            int bit;
+            if (isLonBit) {
+                double midLon = (minLon + maxLon) / 2;
+                if (lon >= midLon) {
+                    bit = 1;
+                    minLon = midLon;
+                } else {
+                    bit = 0;
+                    maxLon = midLon;
+                }
+            } else {
+                double midLat = (minLat + maxLat) / 2;
+                if (lat >= midLat) {
+                    bit = 1;
+                    minLat = midLat;
+                } else {
+                    bit = 0;
+                    maxLat = midLat;
+                }
+            }
+            isLonBit = !isLonBit;
+
+            currentChar = (currentChar << 1) | bit;
+            if (++numOfBitsInCurrentChar == BITS_PER_CHAR) {
+                geoHash.append(BASE_32[currentChar]);
+                currentChar = 0;
+                numOfBitsInCurrentChar = 0;
+            }
+        }
+        return geoHash.toString();
+    }
+}
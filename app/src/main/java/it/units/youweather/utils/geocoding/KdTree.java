@@ -0,0 +1,220 @@
+package it.units.youweather.utils.geocoding;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable <a href="https://en.wikipedia.org/wiki/K-d_tree">k-d tree</a>
+ * of {@link Located located items}, used to find the nearest item to given coordinates.
+ * Items are represented as points on the unit sphere (3D unit vectors), so
+ * that the Euclidean distance between points (the chord) increases with the
+ * great-circle distance, without problems at the poles or at the antimeridian.
+ * The tree is implicit: the median of each range of the arrays is the node
+ * splitting that range, so no node objects are allocated.
+ * Instances are thread-safe.
+ *
+ * @author Matteo Ferfoglia
+ */
+class KdTree<T extends KdTree.Located> {
+
+    /**
+     * The number of dimensions of the points.
+     */
+    private static final int K = 3;
+
+    /**
+     * The mean radius of the Earth, in kilometers.
+     */
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * The items, in tree order.
+     */
+    private final Object[] items;
+
+    /**
+     * The points (unit vectors) of the {@link #items}: the i-th point
+     * has coordinates {@code points[K*i]}, {@code points[K*i+1]}, {@code points[K*i+2]}.
+     */
+    private final double[] points;
+
+    /**
+     * Builds the tree.
+     *
+     * @param items The items to index.
+     */
+    KdTree(@NonNull List<T> items) {
+        this.items = Objects.requireNonNull(items).toArray();
+        this.points = new double[K * this.items.length];
+        for (int i = 0; i < this.items.length; i++) {
+            Located item = (Located) this.items[i];
+            toUnitVector(item.getLat(), item.getLon(), points, K * i);
+        }
+        build(0, this.items.length, 0);
+    }
+
+    /**
+     * @return the number of indexed items.
+     */
+    int size() {
+        return items.length;
+    }
+
+    /**
+     * @param lat           The latitude, in degrees.
+     * @param lon           The longitude, in degrees.
+     * @param maxDistanceKm The maximum distance (great-circle, in kilometers)
+     *                      of the item from the given coordinates.
+     * @return the nearest item to the given coordinates, or null if no items
+     * are nearer than the given maximum distance.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")  // items are instances of T
+    T findNearest(double lat, double lon, double maxDistanceKm) {
+        final double[] query = new double[K];
+        toUnitVector(lat, lon, query, 0);
+        final double maxChord = 2 * Math.sin(Math.min(maxDistanceKm / EARTH_RADIUS_KM, Math.PI) / 2);
+        NearestSearch search = new NearestSearch(query, maxChord * maxChord);
+        search.visit(0, items.length, 0);
+        return search.nearestIndex < 0 ? null : (T) items[search.nearestIndex];
+    }
+
+    /**
+     * Recursively arranges the range [from, to) of the arrays, such that its
+     * median element splits the others according to the given axis.
+     */
+    private void build(int from, int to, int axis) {
+        if (to - from > 1) {
+            final int median = (from + to) >>> 1;
+            select(from, to - 1, median, axis);
+            final int nextAxis = (axis + 1) % K;
+            build(from, median, nextAxis);
+            build(median + 1, to, nextAxis);
+        }
+    }
+
+    /**
+     * <a href="https://en.wikipedia.org/wiki/Quickselect">Quickselect</a>:
+     * rearranges the range [left, right] of the arrays such that the element
+     * at index n is the one which would be there if the range was sorted
+     * according to the given axis, smaller elements precede it and greater
+     * elements follow it.
+     */
+    private void select(int left, int right, int n, int axis) {
+        while (left < right) {
+            final double pivot = points[K * ((left + right) >>> 1) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[K * i + axis] < pivot) i++;
+                while (points[K * j + axis] > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (n <= j) {
+                right = j;
+            } else if (n >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object tmpItem = items[i];
+        items[i] = items[j];
+        items[j] = tmpItem;
+        for (int d = 0; d < K; d++) {
+            double tmp = points[K * i + d];
+            points[K * i + d] = points[K * j + d];
+            points[K * j + d] = tmp;
+        }
+    }
+
+    /**
+     * Converts the given coordinates (in degrees) into the corresponding point
+     * on the unit sphere and writes it into the destination array, from the given offset.
+     */
+    private static void toUnitVector(double lat, double lon, double[] destination, int offset) {
+        final double latRad = Math.toRadians(lat);
+        final double lonRad = Math.toRadians(lon);
+        destination[offset] = Math.cos(latRad) * Math.cos(lonRad);
+        destination[offset + 1] = Math.cos(latRad) * Math.sin(lonRad);
+        destination[offset + 2] = Math.sin(latRad);
+    }
+
+    /**
+     * Item having a geographic location.
+     */
+    interface Located {
+
+        /**
+         * @return the latitude, in degrees.
+         */
+        double getLat();
+
+        /**
+         * @return the longitude, in degrees.
+         */
+        double getLon();
+    }
+
+    /**
+     * State of the search of the nearest point.
+     */
+    private class NearestSearch {
+
+        private final double[] query;
+
+        /**
+         * The squared distance of the nearest point found so far
+         * (initially, the squared maximum distance).
+         */
+        private double nearestSquaredDistance;
+
+        /**
+         * The index of the nearest point found so far, or -1 if none.
+         */
+        private int nearestIndex = -1;
+
+        private NearestSearch(@NonNull double[] query, double maxSquaredDistance) {
+            this.query = query;
+            this.nearestSquaredDistance = maxSquaredDistance;
+        }
+
+        private void visit(int from, int to, int axis) {
+            if (from >= to) {
+                return;
+            }
+            final int median = (from + to) >>> 1;
+            double squaredDistance = 0;
+            for (int d = 0; d < K; d++) {
+                double delta = points[K * median + d] - query[d];
+                squaredDistance += delta * delta;
+            }
+            if (squaredDistance <= nearestSquaredDistance) {
+                nearestSquaredDistance = squaredDistance;
+                nearestIndex = median;
+            }
+
+            final double axisDelta = query[axis] - points[K * median + axis];
+            final int nextAxis = (axis + 1) % K;
+            if (axisDelta < 0) {   // visit first the side containing the query point
+                visit(from, median, nextAxis);
+                if (axisDelta * axisDelta <= nearestSquaredDistance) {
+                    visit(median + 1, to, nextAxis);
+                }
+            } else {
+                visit(median + 1, to, nextAxis);
+                if (axisDelta * axisDelta <= nearestSquaredDistance) {
+                    visit(from, median, nextAxis);
+                }
+            }
+        }
+    }
+}
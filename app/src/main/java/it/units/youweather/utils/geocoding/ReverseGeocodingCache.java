@@ -0,0 +1,149 @@
+package it.units.youweather.utils.geocoding;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonParseException;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import it.units.youweather.EnvironmentVariables;
+import it.units.youweather.entities.City;
+import it.units.youweather.entities.forecast_fields.Coordinates;
+import it.units.youweather.utils.JsonHelper;
+import it.units.youweather.utils.ResourceHelper;
+import it.units.youweather.utils.Timing;
+
+/**
+ * Persistent cache for reverse geocoding (i.e., for the resolution of
+ * {@link Coordinates} into {@link City cities}).
+ * Coordinates are grouped in cells identified by their {@link GeoHash}
+ * (with precision {@link EnvironmentVariables#REVERSE_GEOCODING_GEOHASH_PRECISION}),
+ * and all the coordinates in the same cell are resolved into the same cities.
+ * The cache is kept in memory and saved in the {@link SharedPreferences},
+ * so that it survives to the restart of the application.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class ReverseGeocodingCache {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = ReverseGeocodingCache.class.getSimpleName();
+
+    /**
+     * The name of the {@link SharedPreferences} file for this cache.
+     */
+    private static final String SHARED_PREFERENCES_NAME = "reverse_geocoding_cache";
+
+    /**
+     * The cache in memory (geohashes as keys), lazily loaded from the {@link SharedPreferences}.
+     */
+    private static volatile ConcurrentMap<String, CachedCities> cache = null;
+
+    /**
+     * @param coordinates The {@link Coordinates} to resolve.
+     * @return the (copy of the) array of cities for the given {@link Coordinates},
+     * or null if absent from the cache.
+     */
+    @Nullable
+    public static City[] get(@NonNull Coordinates coordinates) {
+        CachedCities cachedCities = getCache().get(getKey(Objects.requireNonNull(coordinates)));
+        return cachedCities == null ? null : cachedCities.cities.clone();
+    }
+
+    /**
+     * Saves in the cache the cities for the given {@link Coordinates}.
+     *
+     * @param coordinates The {@link Coordinates}.
+     * @param cities      The array of cities for the given {@link Coordinates}.
+     */
+    public static void put(@NonNull Coordinates coordinates, @NonNull City[] cities) {
+        final String key = getKey(Objects.requireNonNull(coordinates));
+        final CachedCities cachedCities = new CachedCities(Objects.requireNonNull(cities).clone());
+        final ConcurrentMap<String, CachedCities> cache = getCache();
+        cache.put(key, cachedCities);
+
+        SharedPreferences.Editor editor = getSharedPreferences().edit();
+        editor.putString(key, JsonHelper.toJson(cachedCities));
+        if (cache.size() > EnvironmentVariables.REVERSE_GEOCODING_CACHE_MAX_ENTRIES) {
+            String oldestKey = null;
+            long oldestSavingTime = Long.MAX_VALUE;
+            for (Map.Entry<String, CachedCities> entry : cache.entrySet()) {
+                if (entry.getValue().savedMillisSinceEpoch < oldestSavingTime) {
+                    oldestSavingTime = entry.getValue().savedMillisSinceEpoch;
+                    oldestKey = entry.getKey();
+                }
+            }
+            if (oldestKey != null) {
+                cache.remove(oldestKey);
+                editor.remove(oldestKey);
+            }
+        }
+        editor.apply(); // asynchronous writing on the disk
+    }
+
+    @NonNull
+    private static String getKey(@NonNull Coordinates coordinates) {
+        return GeoHash.encode(coordinates.getLat(), coordinates.getLon(),
+                EnvironmentVariables.REVERSE_GEOCODING_GEOHASH_PRECISION);
+    }
+
+    /**
+     * @return the cache in memory, after having loaded it from the
+     * {@link SharedPreferences} if not done yet.
+     */
+    @NonNull
+    private static ConcurrentMap<String, CachedCities> getCache() {
+        if (cache == null) {
+            synchronized (ReverseGeocodingCache.class) {
+                if (cache == null) {
+                    ConcurrentMap<String, CachedCities> loadedCache = new ConcurrentHashMap<>();
+                    for (Map.Entry<String, ?> entry : getSharedPreferences().getAll().entrySet()) {
+                        if (entry.getValue() instanceof String) {
+                            try {
+                                CachedCities cachedCities =
+                                        JsonHelper.fromJson((String) entry.getValue(), CachedCities.class);
+                                if (cachedCities != null && cachedCities.cities != null) {
+                                    loadedCache.put(entry.getKey(), cachedCities);
+                                }
+                            } catch (JsonParseException e) {
+                                Log.w(TAG, "Invalid cached entry for " + entry.getKey() + ", ignored", e);
+                            }
+                        }
+                    }
+                    Log.d(TAG, "Loaded " + loadedCache.size() + " entries");
+                    cache = loadedCache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @NonNull
+    private static SharedPreferences getSharedPreferences() {
+        return ResourceHelper.getAppContext()
+                .getSharedPreferences(SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Cities saved in the cache, with the time when they were saved.
+     */
+    private static class CachedCities {
+        private final City[] cities;
+        private final long savedMillisSinceEpoch;
+
+        private CachedCities(@NonNull City[] cities) {
+            this.cities = cities;
+            this.savedMillisSinceEpoch = Timing.getMillisSinceEpoch();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package it.units.youweather.utils.http;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.Objects;
+
+import it.units.youweather.utils.JsonHelper;
+
+/**
+ * Client to perform HTTP requests.
+ * Connections are kept alive and reused for subsequent requests to the
+ * same host (the pool is managed by {@link java.net.HttpURLConnection}),
+ * responses are requested compressed with gzip and requests fail after
+ * a timeout instead of blocking indefinitely.
+ *
+ * @author Matteo Ferfoglia
+ */
+public abstract class HTTPClient {
+
+    /**
+     * Timeout (milliseconds) to establish a connection.
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Timeout (milliseconds) waiting for data from an established connection.
+     */
+    static final int READ_TIMEOUT_MILLIS = 15_000;
+
+    /**
+     * The maximum number of idle connections kept alive for each host.
+     */
+    private static final int MAX_IDLE_CONNECTIONS_PER_HOST = 5;
+
+    static {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_IDLE_CONNECTIONS_PER_HOST));
+    }
+
+    /**
+     * Performs a GET request and reads the whole response.
+     * <strong>Important</strong>: this method performs networking operation,
+     * so, it cannot be invoked from the main thread.
+     *
+     * @param url The URL (as {@link String}) for the request.
+     * @return the {@link HTTPResponse}.
+     * @throws IOException In case of errors.
+     */
+    @NonNull
+    public static HTTPResponse get(@NonNull String url) throws IOException {
+        try (HTTPRequest req = new HTTPRequest(Objects.requireNonNull(url))) {
+            return new HTTPResponse(req);
+        }
+    }
+
+    /**
+     * Performs a GET request and deserializes the JSON response into
+     * an instance of the given {@link Type}. The response is parsed while
+     * it is downloaded, without buffering the whole body.
+     * <strong>Important</strong>: this method performs networking operation,
+     * so, it cannot be invoked from the main thread.
+     *
+     * @param url              The URL (as {@link String}) for the request.
+     * @param deserializedType The {@link Type} (e.g., a {@link Class}) of the response.
+     * @param <T>              The type of the response.
+     * @return the deserialized response.
+     * @throws IOException In case of errors (including invalid responses).
+     */
+    public static <T> T getJson(@NonNull String url, @NonNull Type deserializedType) throws IOException {
+        return getJson(url, deserializedType, null);
+    }
+
+    /**
+     * Like {@link #getJson(String, Type)}, but the request is aborted as soon as
+     * the given {@link CancellationSignal} is cancelled (e.g., because its result
+     * is not needed anymore): the connection is closed without waiting for
+     * the response.
+     *
+     * @param url                The URL (as {@link String}) for the request.
+     * @param deserializedType   The {@link Type} (e.g., a {@link Class}) of the response.
+     * @param cancellationSignal The {@link CancellationSignal} for the request, or null
+     *                           if the request cannot be cancelled.
+     * @param <T>                The type of the response.
+     * @return the deserialized response.
+     * @throws InterruptedIOException If the request was cancelled.
+     * @throws IOException            In case of errors (including invalid responses).
+     */
+    public static <T> T getJson(@NonNull String url, @NonNull Type deserializedType,
+                                @Nullable CancellationSignal cancellationSignal) throws IOException {
+        try (HTTPRequest req = new HTTPRequest(Objects.requireNonNull(url))) {
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(req::cancel);  // invoked immediately if already cancelled
+            }
+            Reader responseReader = new BufferedReader(new InputStreamReader(
+                    req.getResponseBodyInputStream(),
+                    HTTPResponse.getCharset(req.getConnection().getContentType())));
+            T deserialized = JsonHelper.fromJson(responseReader, Objects.requireNonNull(deserializedType));
+            if (deserialized == null) {
+                throw new IOException("Empty response from " + url);
+            }
+            return deserialized;
+        } catch (IOException e) {
+            if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                InterruptedIOException cancelled = new InterruptedIOException("Request cancelled: " + url);
+                cancelled.initCause(e);
+                throw cancelled;
+            }
+            throw e;
+        } finally {
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(null);
+            }
+        }
+    }
+}
@@ -2,20 +2,30 @@ package it.units.youweather.utils.http;
 
 import androidx.annotation.NonNull;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Objects;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Class to handle an HTTP request.
+ * Instances must be {@link #close() closed} after use, to release the
+ * connection (which can then be reused for other requests to the same host).
  *
  * @author Matteo Ferfoglia
  */
-public class HTTPRequest {
+public class HTTPRequest implements Closeable {
 
     private final HttpURLConnection connection;
 
+    /**
+     * The {@link InputStream} of the response body, once opened.
+     */
+    private InputStream responseBodyInputStream = null;
+
     public enum HTTPRequestMethod {GET, POST, PUT, HEAD}
 
     /**
@@ -30,9 +40,14 @@ public class HTTPRequest {
         // Create connection
         connection = (HttpURLConnection)
                 new URL(Objects.requireNonNull(url)).openConnection();
-        connection.setRequestProperty(
-                "Content-Type", "application/x-www-form-urlencoded");
-        connection.setUseCaches(false);
+        if (requestMethod != HTTPRequestMethod.GET && requestMethod != HTTPRequestMethod.HEAD) {
+            connection.setRequestProperty(
+                    "Content-Type", "application/x-www-form-urlencoded");
+        }
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("Connection", "keep-alive");
+        connection.setConnectTimeout(HTTPClient.CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(HTTPClient.READ_TIMEOUT_MILLIS);
         connection.setRequestMethod(Objects.requireNonNull(requestMethod).name());
     }
 
@@ -48,10 +63,54 @@ public class HTTPRequest {
         return connection;
     }
 
+    /**
+     * Sends the request (if not sent yet) and returns the {@link InputStream}
+     * of the response body, already decompressed if the server used gzip.
+     * The returned stream is closed when this instance is {@link #close() closed}.
+     *
+     * @return the {@link InputStream} of the response body.
+     * @throws IOException If the request fails or the server responds with an error status code.
+     */
+    @NonNull
+    public InputStream getResponseBodyInputStream() throws IOException {
+        if (responseBodyInputStream == null) {
+            int statusCode = connection.getResponseCode();
+            if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                throw new IOException("HTTP error " + statusCode + " for " + connection.getURL());
+            }
+            InputStream inputStream = connection.getInputStream();
+            responseBodyInputStream = "gzip".equalsIgnoreCase(connection.getContentEncoding())
+                    ? new GZIPInputStream(inputStream)
+                    : inputStream;
+        }
+        return responseBodyInputStream;
+    }
+
+    /**
+     * Aborts this request, also if it is in progress in another thread
+     * (which will get an {@link IOException}). This method can be invoked
+     * from any thread.
+     */
+    public void cancel() {
+        connection.disconnect();
+    }
+
+    /**
+     * Releases the resources of this request.
+     * If the response was read, the connection is kept alive to be reused,
+     * otherwise it is disconnected.
+     */
     @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
+    public void close() {
+        if (responseBodyInputStream != null) {
+            try {
+                responseBodyInputStream.close();
+                return;
+            } catch (IOException ignored) {
+                // the connection cannot be reused, hence it is disconnected below
+            }
+        }
         connection.disconnect();
     }
 
-}
\ No newline at end of file
+}
@@ -1,9 +1,14 @@
 package it.units.youweather.utils.http;
 
 
-import java.io.BufferedReader;
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 
 /**
  * Class to handle an HTTP response.
@@ -13,9 +18,19 @@ import java.io.InputStreamReader;
 public class HTTPResponse {
 
     /**
-     * The {@link String} with the response received from the server.
+     * The size of the buffer used to read the response.
+     */
+    private static final int BUFFER_SIZE_BYTES = 8 * 1024;
+
+    /**
+     * The bytes of the body of the response received from the server.
+     */
+    private final byte[] body;
+
+    /**
+     * The {@link Charset} of the body.
      */
-    private final String response;
+    private final Charset charset;
 
     /**
      * Constructor.
@@ -23,22 +38,52 @@ public class HTTPResponse {
      * @param req The {@link HTTPRequest} for which you want to get the response.
      * @throws IOException in case of errors.
      */
-    public HTTPResponse(HTTPRequest req) throws IOException {
-        try (
-                BufferedReader responseReader = new BufferedReader(
-                        new InputStreamReader(req.getConnection().getInputStream()))) {
-
-            // read response
-            StringBuilder responseSb = new StringBuilder();
-            String line;
-            while ((line = responseReader.readLine()) != null) {
-                responseSb.append(line).append(System.lineSeparator());
-            }
-            response = responseSb.toString();
+    public HTTPResponse(@NonNull HTTPRequest req) throws IOException {
+        InputStream responseInputStream = Objects.requireNonNull(req).getResponseBodyInputStream();
+        int contentLength = req.getConnection().getContentLength();     // -1 if unknown (or compressed)
+        ByteArrayOutputStream bodyOutputStream =
+                new ByteArrayOutputStream(contentLength > 0 ? contentLength : BUFFER_SIZE_BYTES);
+        byte[] buffer = new byte[BUFFER_SIZE_BYTES];
+        int numOfReadBytes;
+        while ((numOfReadBytes = responseInputStream.read(buffer)) != -1) {
+            bodyOutputStream.write(buffer, 0, numOfReadBytes);
         }
+        body = bodyOutputStream.toByteArray();
+        charset = getCharset(req.getConnection().getContentType());
     }
 
+    /**
+     * @return the body of the response, as {@link String}.
+     */
     public String getResponse() {
-        return response;
+        return new String(body, charset);
+    }
+
+    /**
+     * @return the bytes of the body of the response.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @param contentType The value of the Content-Type header (can be null).
+     * @return the {@link Charset} specified in the given content type, or UTF-8 as default.
+     */
+    @NonNull
+    static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String[] keyValue = param.trim().split("=", 2);
+                if (keyValue.length == 2 && keyValue[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(keyValue[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException ignored) {
+                        break;  // unsupported charset, use the default one
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
     }
 }
@@ -3,10 +3,14 @@ package it.units.youweather.utils.storage;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -33,6 +37,13 @@ public abstract class DBEntity implements Serializable {
      */
     private volatile String id;
 
+    /**
+     * The fields changed since the last synchronization with the database
+     * (field names as keys, new values as values), or null if none changed.
+     * This field is transient, so it is not saved in the database.
+     */
+    private transient Map<String, Object> changedFields = null;
+
     /**
      * No-args constructor.
      */
@@ -54,6 +65,38 @@ public abstract class DBEntity implements Serializable {
         this.id = Objects.requireNonNull(id);
     }
 
+    /**
+     * Records that the given field changed, so that only the changed fields
+     * are written to the database when synchronizing it with this instance
+     * (if observed, see {@link DBEntityHelper#push(DBEntity, Runnable, Runnable)}).
+     * Derived classes must invoke this method when changing the value of a
+     * field saved in the database.
+     *
+     * @param fieldName The name of the field in the database.
+     * @param newValue  The new value of the field (null to remove it).
+     */
+    protected synchronized void markChanged(@NonNull String fieldName, @Nullable Object newValue) {
+        if (changedFields == null) {
+            changedFields = new LinkedHashMap<>();
+        }
+        changedFields.put(Objects.requireNonNull(fieldName), newValue);
+    }
+
+    /**
+     * @return the fields changed since the last invocation of this method (field
+     * names as keys, new values as values), in the order in which they changed
+     * (an empty {@link Map} if none changed). They are not recorded as changed anymore.
+     */
+    @NonNull
+    public synchronized Map<String, Object> takeChangedFields() {
+        if (changedFields == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> taken = changedFields;
+        changedFields = null;
+        return taken;
+    }
+
     @Override
     public abstract boolean equals(Object o);
 
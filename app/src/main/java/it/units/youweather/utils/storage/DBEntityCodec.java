@@ -0,0 +1,176 @@
+package it.units.youweather.utils.storage;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Codec to restore a {@link DBEntity} from its representation as a tree of
+ * {@link Map}s (as returned by the database), having field names as keys.
+ * Codecs are hand-written for each {@link DBEntity} class and are
+ * {@link #register(Class, DBEntityCodec) registered} in the static initializer
+ * of the class: they avoid the reflection and the intermediate JSON representation
+ * needed by generic deserializers. {@link DBEntity} classes without a codec are
+ * deserialized with the generic mechanism of the {@link DBEntityAdapter}.
+ * This class also provides the helpers to read the values of the tree,
+ * which are lenient like generic deserializers (e.g., integral numbers
+ * may be returned as {@link Long}s for fields of type <code>double</code>).
+ *
+ * @param <T> The type of the {@link DBEntity}.
+ * @author Matteo Ferfoglia
+ */
+public abstract class DBEntityCodec<T extends DBEntity> {
+
+    /**
+     * TAG for logger.
+     */
+    private static final String TAG = DBEntityCodec.class.getSimpleName();
+
+    /**
+     * The name of the field of {@link DBEntity} with the identifier.
+     */
+    private static final String ID_FIELD_NAME = "id";
+
+    /**
+     * The registered codecs ({@link DBEntity} classes as keys).
+     */
+    private static final ConcurrentMap<Class<? extends DBEntity>, DBEntityCodec<? extends DBEntity>> codecs =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Registers the codec for the given {@link DBEntity} class.
+     *
+     * @param entityClass The {@link DBEntity} class.
+     * @param codec       The codec for the given class.
+     */
+    public static <T extends DBEntity> void register(@NonNull Class<T> entityClass,
+                                                     @NonNull DBEntityCodec<T> codec) {
+        codecs.put(Objects.requireNonNull(entityClass), Objects.requireNonNull(codec));
+    }
+
+    /**
+     * @param entityClass The {@link DBEntity} class.
+     * @return the codec registered for the given class, or null if it has not any.
+     * The class is initialized (if it was not yet), so that its static initializer
+     * can register the codec.
+     */
+    @Nullable
+    public static <T extends DBEntity> DBEntityCodec<T> get(@NonNull Class<T> entityClass) {
+        Objects.requireNonNull(entityClass);
+        try {
+            Class.forName(entityClass.getName(), true, entityClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            Log.e(TAG, "Unable to initialize " + entityClass, e);
+        }
+        @SuppressWarnings("unchecked")  // the map is populated only by register()
+        DBEntityCodec<T> codec = (DBEntityCodec<T>) codecs.get(entityClass);
+        return codec;
+    }
+
+    /**
+     * @param tuple The tuple, as returned by the database.
+     * @return the entity represented by the given tuple, with its identifier (if present).
+     * @throws RuntimeException If the tuple is not valid for the entity.
+     */
+    @NonNull
+    public final T decode(@NonNull Map<String, Object> tuple) {
+        T entity = decodeFields(Objects.requireNonNull(tuple));
+        String id = getString(tuple, ID_FIELD_NAME);
+        if (id != null) {
+            entity.setId(id);
+        }
+        return entity;
+    }
+
+    /**
+     * @param tuple The tuple, as returned by the database.
+     * @return the entity represented by the given tuple (the identifier is set by the caller).
+     * Missing fields keep their default values.
+     */
+    @NonNull
+    protected abstract T decodeFields(@NonNull Map<String, Object> tuple);
+
+    /**
+     * @return the value of the given field as {@link String}, or null if absent.
+     */
+    @Nullable
+    public static String getString(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        Object value = tree.get(fieldName);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * @return the value of the given field as <code>long</code>, or 0 if absent.
+     */
+    public static long getLong(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        return getNumber(tree, fieldName).longValue();
+    }
+
+    /**
+     * @return the value of the given field as <code>int</code>, or 0 if absent.
+     */
+    public static int getInt(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        return getNumber(tree, fieldName).intValue();
+    }
+
+    /**
+     * @return the value of the given field as <code>double</code>, or 0 if absent.
+     */
+    public static double getDouble(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        return getNumber(tree, fieldName).doubleValue();
+    }
+
+    /**
+     * @return the value of the given field as subtree, or null if absent.
+     */
+    @Nullable
+    public static Map<String, Object> getMap(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        Object value = tree.get(fieldName);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Field " + fieldName + " is not an object: " + value);
+        }
+        @SuppressWarnings("unchecked")  // keys of trees from the database are field names
+        Map<String, Object> subtree = (Map<String, Object>) value;
+        return subtree;
+    }
+
+    /**
+     * @return the value of the given field as {@link Map} of {@link String}s, or null if absent.
+     */
+    @Nullable
+    public static Map<String, String> getStringMap(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        Map<String, Object> subtree = getMap(tree, fieldName);
+        if (subtree == null) {
+            return null;
+        }
+        Map<String, String> stringMap = new LinkedHashMap<>(subtree.size());
+        for (Map.Entry<String, Object> entry : subtree.entrySet()) {
+            stringMap.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().toString());
+        }
+        return stringMap;
+    }
+
+    @NonNull
+    private static Number getNumber(@NonNull Map<String, Object> tree, @NonNull String fieldName) {
+        Object value = tree.get(fieldName);
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Number) {
+            return (Number) value;
+        } else if (value instanceof String) {
+            return Double.valueOf((String) value);
+        } else {
+            throw new IllegalArgumentException("Field " + fieldName + " is not a number: " + value);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package it.units.youweather.utils.storage;
 
+import android.os.CancellationSignal;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Comparator;
 import java.util.List;
 
 import it.units.youweather.utils.functionals.Consumer;
+import it.units.youweather.utils.functionals.Predicate;
 
 /**
  * Interface for an entity of a database (i.e., a table in the relational
@@ -16,6 +20,17 @@ import it.units.youweather.utils.functionals.Consumer;
  */
 interface DBEntityHelper<T extends DBEntity> {
 
+    /**
+     * Assigns an unique identifier to the given entity, without adding it to
+     * the database (e.g., to refer to it from other entities before adding
+     * them all together with a {@link DBHelper.Batch}).
+     *
+     * @param newTuple The new instance to be added.
+     * @return the assigned identifier.
+     */
+    @NonNull
+    String allocateKey(@NonNull DBEntity newTuple);
+
     /**
      * Add new instance for the entity associated with the {@link DBEntity} to be added
      * to the database.
@@ -67,6 +82,52 @@ interface DBEntityHelper<T extends DBEntity> {
                   @NonNull Consumer<List<T>> onSuccess, @Nullable Runnable onError);
 
 
+    /**
+     * Retrieve all {@link DBEntity tuples} for the entity associate with this instance,
+     * page by page (ordered by key), so that all the tuples never need to be in memory
+     * at once. Each page is passed to the given {@link Predicate} as soon as it is
+     * available and the next page is retrieved only if the {@link Predicate} returns true.
+     *
+     * @param pageSize           The maximum number of tuples in a page.
+     * @param onPage             The {@link Predicate} that will accept each (non-empty) page
+     *                           and return true to get the next one, or false to stop.
+     * @param onCompleted        The {@link Runnable} to be run after the last page (if
+     *                           the retrieval was not stopped before).
+     * @param onError            The {@link Runnable} to be run in case of error.
+     * @param cancellationSignal The {@link CancellationSignal} to stop the retrieval,
+     *                           or null if the retrieval cannot be cancelled.
+     */
+    void pullPaged(int pageSize, @NonNull Predicate<List<T>> onPage, @Nullable Runnable onCompleted,
+                   @Nullable Runnable onError, @Nullable CancellationSignal cancellationSignal);
+
+    /**
+     * Like {@link #pullPaged(int, Predicate, Runnable, Runnable, CancellationSignal)}, but
+     * only the tuples matching the given {@link Query} are retrieved (ordered by the
+     * field of the query).
+     *
+     * @param <S>   The generic for the field on which the query is applied.
+     * @param query The query.
+     */
+    <S> void pullPaged(@NonNull Query<S> query, int pageSize, @NonNull Predicate<List<T>> onPage,
+                       @Nullable Runnable onCompleted, @Nullable Runnable onError,
+                       @Nullable CancellationSignal cancellationSignal);
+
+    /**
+     * Starts a {@link LiveQuery} for the {@link DBEntity tuples} for the entity associate
+     * with this instance, matching the given {@link Query}: after the initial results,
+     * only the changes are retrieved from the database.
+     *
+     * @param <S>      The generic for the field on which the query is applied.
+     * @param query    The query.
+     * @param order    The {@link Comparator} to sort the results.
+     * @param listener The {@link LiveQuery.Listener} for the results.
+     * @return the started {@link LiveQuery}, to be {@link LiveQuery#close() closed}
+     * when the results are not needed anymore.
+     */
+    @NonNull
+    <S> LiveQuery<T> observe(@NonNull Query<S> query, @NonNull Comparator<T> order,
+                             @NonNull LiveQuery.Listener<T> listener);
+
     /**
      * Retrieve the entity of the specified {@link Class} having the specified key.
      *
@@ -75,7 +136,24 @@ interface DBEntityHelper<T extends DBEntity> {
      *                  in case of success.
      * @param onError   The {@link Runnable} to be run in case of error.
      */
-    void pull(@NonNull String key, @NonNull Consumer<T> onSuccess, @Nullable Runnable onError);
+    default void pull(@NonNull String key, @NonNull Consumer<T> onSuccess, @Nullable Runnable onError) {
+        pull(key, onSuccess, onError, null);
+    }
+
+    /**
+     * Like {@link #pull(String, Consumer, Runnable)}, but the operation is aborted
+     * as soon as the given {@link CancellationSignal} is cancelled: in this case,
+     * neither the given {@link Consumer} nor the given {@link Runnable} are executed.
+     *
+     * @param key                The key of the tuple in the database.
+     * @param onSuccess          The {@link Consumer} that will accept all the retrieved entity
+     *                           in case of success.
+     * @param onError            The {@link Runnable} to be run in case of error.
+     * @param cancellationSignal The {@link CancellationSignal} for the operation, or null
+     *                           if the operation cannot be cancelled.
+     */
+    void pull(@NonNull String key, @NonNull Consumer<T> onSuccess, @Nullable Runnable onError,
+              @Nullable CancellationSignal cancellationSignal);
 
     /**
      * This method makes the instance to start to observe the entity associated
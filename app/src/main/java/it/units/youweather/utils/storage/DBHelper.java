@@ -1,14 +1,21 @@
 package it.units.youweather.utils.storage;
 
+import android.os.CancellationSignal;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import it.units.youweather.utils.Promise;
 import it.units.youweather.utils.functionals.Consumer;
+import it.units.youweather.utils.functionals.Predicate;
 import it.units.youweather.utils.storage.firebase_rtdb.FirebaseRTDBEntityAdapter;
 
 /**
@@ -76,6 +83,35 @@ public class DBHelper {
         getInstance(Objects.requireNonNull(newTuple).getClass()).push(newTuple);
     }
 
+    /**
+     * @return a new (empty) {@link Batch}.
+     */
+    @NonNull
+    public static Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Atomically pushes all the tuples of the given {@link Batch} with a single
+     * write: either all of them are added to the database, or none.
+     * The batch cannot be modified after this invocation.
+     *
+     * @param batch     The {@link Batch} to commit.
+     * @param onSuccess The {@link Runnable} to be run if the tuples are
+     *                  successfully added to the database.
+     * @param onError   The {@link Runnable} to be run in case of error.
+     */
+    public static void commit(@NonNull Batch batch, @Nullable Runnable onSuccess, @Nullable Runnable onError) {
+        List<DBEntity> newTuples = Objects.requireNonNull(batch).close();
+        if (newTuples.isEmpty()) {
+            if (onSuccess != null) {
+                onSuccess.run();
+            }
+        } else {
+            FirebaseRTDBEntityAdapter.pushAtomically(newTuples, onSuccess, onError);
+        }
+    }
+
     /**
      * See {@link DBEntityHelper#pull(Consumer, Runnable)}.
      *
@@ -97,6 +133,50 @@ public class DBHelper {
         getInstance(Objects.requireNonNull(entityClass)).pull(query, onSuccess, onError);
     }
 
+    /**
+     * See {@link DBEntityHelper#pullPaged(int, Predicate, Runnable, Runnable, CancellationSignal)}.
+     *
+     * @param entityClass The {@link Class} for the entity.
+     */
+    public static <T extends DBEntity> void pullPaged(@NonNull Class<T> entityClass,
+                                                      int pageSize,
+                                                      @NonNull Predicate<List<T>> onPage,
+                                                      @Nullable Runnable onCompleted,
+                                                      @Nullable Runnable onError,
+                                                      @Nullable CancellationSignal cancellationSignal) {
+        getInstance(Objects.requireNonNull(entityClass))
+                .pullPaged(pageSize, onPage, onCompleted, onError, cancellationSignal);
+    }
+
+    /**
+     * See {@link DBEntityHelper#pullPaged(Query, int, Predicate, Runnable, Runnable, CancellationSignal)}.
+     *
+     * @param entityClass The {@link Class} for the entity.
+     */
+    public static <S, T extends DBEntity> void pullPaged(@NonNull Query<S> query,
+                                                         @NonNull Class<T> entityClass,
+                                                         int pageSize,
+                                                         @NonNull Predicate<List<T>> onPage,
+                                                         @Nullable Runnable onCompleted,
+                                                         @Nullable Runnable onError,
+                                                         @Nullable CancellationSignal cancellationSignal) {
+        getInstance(Objects.requireNonNull(entityClass))
+                .pullPaged(query, pageSize, onPage, onCompleted, onError, cancellationSignal);
+    }
+
+    /**
+     * See {@link DBEntityHelper#observe(Query, Comparator, LiveQuery.Listener)}.
+     *
+     * @param entityClass The {@link Class} for the entity.
+     */
+    @NonNull
+    public static <S, T extends DBEntity> LiveQuery<T> observe(@NonNull Query<S> query,
+                                                               @NonNull Class<T> entityClass,
+                                                               @NonNull Comparator<T> order,
+                                                               @NonNull LiveQuery.Listener<T> listener) {
+        return getInstance(Objects.requireNonNull(entityClass)).observe(query, order, listener);
+    }
+
     /**
      * See {@link DBEntityHelper#forget(DBEntity)} (DBEntity)}.
      */
@@ -119,8 +199,196 @@ public class DBHelper {
             @NonNull Class<T> clazz,
             @NonNull Consumer<T> onSuccess,
             @Nullable Runnable onError) {
+        pullByKey(tupleKey, clazz, onSuccess, onError, null);
+    }
+
+    /**
+     * Like {@link #pullByKey(String, Class, Consumer, Runnable)}, but the operation
+     * can be cancelled (see {@link DBEntityHelper#pull(String, Consumer, Runnable, CancellationSignal)}).
+     */
+    public static <T extends DBEntity> void pullByKey(
+            @NonNull String tupleKey,
+            @NonNull Class<T> clazz,
+            @NonNull Consumer<T> onSuccess,
+            @Nullable Runnable onError,
+            @Nullable CancellationSignal cancellationSignal) {
         getInstance(Objects.requireNonNull(clazz))
-                .pull(Objects.requireNonNull(tupleKey), Objects.requireNonNull(onSuccess), onError);
+                .pull(Objects.requireNonNull(tupleKey), Objects.requireNonNull(onSuccess), onError, cancellationSignal);
+    }
+
+    /**
+     * Like {@link #push(DBEntity, Runnable, Runnable)}, but returns a {@link Promise}.
+     *
+     * @param newTuple The tuple to push.
+     * @return the {@link Promise} of the key of the pushed tuple, rejected with a
+     * {@link OperationFailedException} in case of errors.
+     */
+    @NonNull
+    public static Promise<String> pushAsync(@NonNull DBEntity newTuple) {
+        Objects.requireNonNull(newTuple);
+        final Promise<String> promise = new Promise<>();
+        push(newTuple,
+                () -> promise.resolve(newTuple.getId()),
+                () -> promise.reject(new OperationFailedException("Unable to push " + newTuple)));
+        return promise;
+    }
+
+    /**
+     * Like {@link #commit(Batch, Runnable, Runnable)}, but returns a {@link Promise}.
+     *
+     * @param batch The {@link Batch} to commit.
+     * @return the {@link Promise} of the keys of the pushed tuples (in the order in
+     * which they were added to the batch), rejected with a {@link OperationFailedException}
+     * in case of errors.
+     */
+    @NonNull
+    public static Promise<List<String>> commitAsync(@NonNull Batch batch) {
+        Objects.requireNonNull(batch);
+        final Promise<List<String>> promise = new Promise<>();
+        commit(batch,
+                () -> promise.resolve(batch.getKeys()),
+                () -> promise.reject(new OperationFailedException("Unable to commit " + batch)));
+        return promise;
+    }
+
+    /**
+     * Like {@link #pull(Class, Consumer, Runnable)}, but returns a {@link Promise}.
+     *
+     * @param entityClass The {@link Class} for the entity.
+     * @return the {@link Promise} of the pulled tuples, rejected with a
+     * {@link OperationFailedException} in case of errors.
+     */
+    @NonNull
+    public static <T extends DBEntity> Promise<List<T>> pullAsync(@NonNull Class<T> entityClass) {
+        final Promise<List<T>> promise = new Promise<>();
+        pull(entityClass,
+                promise::resolve,
+                () -> promise.reject(new OperationFailedException("Unable to pull " + entityClass.getSimpleName())));
+        return promise;
+    }
+
+    /**
+     * Like {@link #pull(Query, Class, Consumer, Runnable)}, but returns a {@link Promise}.
+     *
+     * @param query       The {@link Query}.
+     * @param entityClass The {@link Class} for the entity.
+     * @return the {@link Promise} of the tuples matching the query, rejected with a
+     * {@link OperationFailedException} in case of errors.
+     */
+    @NonNull
+    public static <S, T extends DBEntity> Promise<List<T>> pullAsync(@NonNull Query<S> query,
+                                                                    @NonNull Class<T> entityClass) {
+        final Promise<List<T>> promise = new Promise<>();
+        pull(query, entityClass,
+                promise::resolve,
+                () -> promise.reject(new OperationFailedException("Unable to evaluate " + query)));
+        return promise;
+    }
+
+    /**
+     * Like {@link #pullByKey(String, Class, Consumer, Runnable)}, but returns a {@link Promise}.
+     *
+     * @param tupleKey The key of the tuple.
+     * @param clazz    The {@link Class} for the entity.
+     * @return the {@link Promise} of the tuple, rejected with a
+     * {@link OperationFailedException} in case of errors (e.g., if not found).
+     * Cancelling the {@link Promise} aborts the operation.
+     */
+    @NonNull
+    public static <T extends DBEntity> Promise<T> pullByKeyAsync(@NonNull String tupleKey,
+                                                                 @NonNull Class<T> clazz) {
+        final Promise<T> promise = new Promise<>();
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        promise.onCancel(cancellationSignal::cancel);
+        pullByKey(tupleKey, clazz,
+                promise::resolve,
+                () -> promise.reject(new OperationFailedException("Unable to pull tuple " + tupleKey)),
+                cancellationSignal);
+        return promise;
+    }
+
+    /**
+     * Batch of new tuples (possibly of different entities) to be
+     * {@link #commit(Batch, Runnable, Runnable) committed} to the database
+     * all together. The keys of the tuples are assigned when they are added
+     * to the batch, so that tuples can refer to each other before being
+     * committed (e.g., a preview can refer to the details).
+     * Instances are created with {@link #newBatch()} and are thread-safe.
+     */
+    public static class Batch {
+
+        /**
+         * The tuples to be committed, in insertion order.
+         */
+        private final List<DBEntity> newTuples = new ArrayList<>();
+
+        /**
+         * Flag set to true when this batch is committed.
+         */
+        private boolean committed = false;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds the given tuple to this batch and assigns its unique identifier
+         * (see {@link DBEntityHelper#allocateKey(DBEntity)}).
+         *
+         * @param newTuple The new tuple to be added to the database.
+         * @return the key of the given tuple.
+         * @throws IllegalStateException If this batch was already committed.
+         */
+        @NonNull
+        public synchronized String push(@NonNull DBEntity newTuple) {
+            if (committed) {
+                throw new IllegalStateException("Batch already committed");
+            }
+            String key = getInstance(Objects.requireNonNull(newTuple).getClass()).allocateKey(newTuple);
+            newTuples.add(newTuple);
+            return key;
+        }
+
+        /**
+         * @return the keys of the tuples of this batch, in insertion order.
+         */
+        @NonNull
+        public synchronized List<String> getKeys() {
+            List<String> keys = new ArrayList<>(newTuples.size());
+            for (DBEntity newTuple : newTuples) {
+                keys.add(newTuple.getId());
+            }
+            return keys;
+        }
+
+        /**
+         * Marks this batch as committed.
+         *
+         * @return the tuples to be committed.
+         * @throws IllegalStateException If this batch was already committed.
+         */
+        @NonNull
+        private synchronized List<DBEntity> close() {
+            if (committed) {
+                throw new IllegalStateException("Batch already committed");
+            }
+            committed = true;
+            return Collections.unmodifiableList(new ArrayList<>(newTuples));
+        }
+
+        @NonNull
+        @Override
+        public synchronized String toString() {
+            return "Batch{" + getKeys() + "}";
+        }
+    }
+
+    /**
+     * Exception for the rejection of the {@link Promise}s of the database operations.
+     */
+    public static class OperationFailedException extends Exception {
+        OperationFailedException(String message) {
+            super(message);
+        }
     }
 
     /**
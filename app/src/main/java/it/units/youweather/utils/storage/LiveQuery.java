@@ -0,0 +1,285 @@
+package it.units.youweather.utils.storage;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+import it.units.youweather.utils.Dispatchers;
+
+/**
+ * Live {@link Query}: it keeps the (sorted) results of a {@link Query} up to date
+ * with the database and notifies its {@link Listener} only of the changes
+ * (i.e., added, changed or removed tuples), without evaluating the query again.
+ * The database adapter creating the instance listens for the changes of the
+ * tuples matching the query and reports them with the protected methods of
+ * this class, which process them in order, not on the main thread.
+ * A live query must be {@link #close() closed} when its results are not needed
+ * anymore.
+ *
+ * @param <T> The type of the {@link DBEntity}.
+ * @author Matteo Ferfoglia
+ */
+public abstract class LiveQuery<T extends DBEntity> {
+
+    /**
+     * Listener for the results of a {@link LiveQuery}.
+     * Methods are invoked in the order of the changes, not on the main thread,
+     * and only after the initial results are available.
+     * Indexes refer to the results sorted with the {@link Comparator} of the
+     * {@link LiveQuery}.
+     *
+     * @param <T> The type of the {@link DBEntity}.
+     */
+    public interface Listener<T> {
+
+        /**
+         * @param results The (sorted) results of the query, when the live query starts.
+         */
+        void onInitialized(@NonNull List<T> results);
+
+        /**
+         * @param entity The entity which now matches the query.
+         * @param index  The index of the entity in the results.
+         */
+        void onAdded(@NonNull T entity, int index);
+
+        /**
+         * @param entity        The changed entity.
+         * @param previousIndex The index of the entity in the results before the change.
+         * @param index         The index of the entity in the results after the change.
+         */
+        void onChanged(@NonNull T entity, int previousIndex, int index);
+
+        /**
+         * @param entity The entity which does not match the query anymore.
+         * @param index  The index of the entity in the results before the removal.
+         */
+        void onRemoved(@NonNull T entity, int index);
+
+        /**
+         * Invoked if the live query fails (e.g., for missing permissions):
+         * in this case, no other methods will be invoked.
+         */
+        void onError();
+    }
+
+    /**
+     * An entity in the results, with its key.
+     */
+    private static class Entry<T> {
+        final String key;
+        final T entity;
+
+        Entry(@NonNull String key, @NonNull T entity) {
+            this.key = key;
+            this.entity = entity;
+        }
+    }
+
+    private final Listener<T> listener;
+
+    /**
+     * The order of the entries in {@link #sortedEntries}: the one given by the
+     * {@link Comparator} of the entities, then by key (so it is a total order).
+     */
+    private final Comparator<Entry<T>> entryComparator;
+
+    private final List<Entry<T>> sortedEntries = new ArrayList<>();
+    private final Map<String, Entry<T>> entriesByKey = new HashMap<>();
+
+    /**
+     * The {@link Executor} processing the changes in order.
+     */
+    private final Executor serialExecutor = Dispatchers.newSerialExecutor(Dispatchers.cpu());
+
+    /**
+     * Flag set to true when the initial results are available.
+     */
+    private boolean initialized = false;
+
+    /**
+     * Flag set to true when this instance is closed or failed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param order    The {@link Comparator} to sort the results.
+     * @param listener The {@link Listener} for the results.
+     */
+    protected LiveQuery(@NonNull Comparator<T> order, @NonNull Listener<T> listener) {
+        Objects.requireNonNull(order);
+        this.listener = Objects.requireNonNull(listener);
+        this.entryComparator = (a, b) -> {
+            int comparison = order.compare(a.entity, b.entity);
+            return comparison != 0 ? comparison : a.key.compareTo(b.key);
+        };
+    }
+
+    /**
+     * @return a copy of the current (sorted) results.
+     */
+    @NonNull
+    public synchronized List<T> getResults() {
+        List<T> results = new ArrayList<>(sortedEntries.size());
+        for (Entry<T> entry : sortedEntries) {
+            results.add(entry.entity);
+        }
+        return results;
+    }
+
+    /**
+     * Stops listening for changes: the {@link Listener} will not be invoked anymore.
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            detach();
+        }
+    }
+
+    /**
+     * @return true if this instance was {@link #close() closed}.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops the listening for changes in the database.
+     */
+    protected abstract void detach();
+
+    /**
+     * Executes the given task (e.g., the decoding of a changed tuple, followed by
+     * the invocation of one of the protected methods of this class), after the
+     * ones previously executed with this method (not on the main thread).
+     * Tasks are not executed after this instance is closed.
+     */
+    protected void execute(@NonNull Runnable task) {
+        Objects.requireNonNull(task);
+        serialExecutor.execute(() -> {
+            if (!closed) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * To be invoked (from a task {@link #execute(Runnable) executed}) when all the
+     * tuples initially matching the query have been reported with {@link #added(String, DBEntity)}.
+     */
+    protected void initialized() {
+        synchronized (this) {
+            if (initialized) {
+                return;
+            }
+            initialized = true;
+        }
+        listener.onInitialized(getResults());
+    }
+
+    /**
+     * To be invoked (from a task {@link #execute(Runnable) executed}) when
+     * a tuple matches the query.
+     *
+     * @param key    The key of the tuple.
+     * @param entity The entity.
+     */
+    protected void added(@NonNull String key, @NonNull T entity) {
+        if (entriesByKey.containsKey(Objects.requireNonNull(key))) {
+            changed(key, entity);
+            return;
+        }
+        final int index;
+        synchronized (this) {
+            index = insert(new Entry<>(key, Objects.requireNonNull(entity)));
+        }
+        if (initialized) {
+            listener.onAdded(entity, index);
+        }
+    }
+
+    /**
+     * To be invoked (from a task {@link #execute(Runnable) executed}) when
+     * a tuple matching the query changes.
+     *
+     * @param key    The key of the tuple.
+     * @param entity The changed entity.
+     */
+    protected void changed(@NonNull String key, @NonNull T entity) {
+        final Entry<T> oldEntry = entriesByKey.get(Objects.requireNonNull(key));
+        if (oldEntry == null) {
+            added(key, entity);
+            return;
+        }
+        final int previousIndex, index;
+        synchronized (this) {
+            previousIndex = remove(oldEntry);
+            index = insert(new Entry<>(key, Objects.requireNonNull(entity)));
+        }
+        if (initialized) {
+            listener.onChanged(entity, previousIndex, index);
+        }
+    }
+
+    /**
+     * To be invoked (from a task {@link #execute(Runnable) executed}) when
+     * a tuple does not match the query anymore.
+     *
+     * @param key The key of the tuple.
+     */
+    protected void removed(@NonNull String key) {
+        final Entry<T> oldEntry = entriesByKey.get(Objects.requireNonNull(key));
+        if (oldEntry == null) {
+            return;
+        }
+        final int index;
+        synchronized (this) {
+            index = remove(oldEntry);
+        }
+        if (initialized) {
+            listener.onRemoved(oldEntry.entity, index);
+        }
+    }
+
+    /**
+     * To be invoked (from a task {@link #execute(Runnable) executed}) if
+     * the live query fails: the instance is closed.
+     */
+    protected void failed() {
+        close();
+        listener.onError();
+    }
+
+    /**
+     * @return the index at which the given entry was inserted.
+     */
+    private int insert(@NonNull Entry<T> entry) {
+        int index = Collections.binarySearch(sortedEntries, entry, entryComparator);
+        if (index < 0) {
+            index = -index - 1;     // insertion point
+        }
+        sortedEntries.add(index, entry);
+        entriesByKey.put(entry.key, entry);
+        return index;
+    }
+
+    /**
+     * @return the index from which the given entry was removed.
+     */
+    private int remove(@NonNull Entry<T> entry) {
+        int index = Collections.binarySearch(sortedEntries, entry, entryComparator);
+        sortedEntries.remove(index);
+        entriesByKey.remove(entry.key);
+        return index;
+    }
+}
@@ -1,5 +1,6 @@
 package it.units.youweather.utils.storage.firebase_rtdb;
 
+import android.os.CancellationSignal;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -14,19 +15,26 @@ import com.google.firebase.database.ValueEventListener;
 import com.google.gson.Gson;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import it.units.youweather.EnvironmentVariables;
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.functionals.Consumer;
+import it.units.youweather.utils.functionals.Function;
+import it.units.youweather.utils.functionals.Predicate;
 import it.units.youweather.utils.storage.DBEntity;
 import it.units.youweather.utils.storage.DBEntityAdapter;
+import it.units.youweather.utils.storage.DBEntityCodec;
+import it.units.youweather.utils.storage.LiveQuery;
 import it.units.youweather.utils.storage.Query;
 
 @SuppressWarnings("unchecked") // de/serialization of instances from/to DB requires casting
@@ -55,10 +63,21 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
 
     /**
      * {@link Gson Json helper} instance used for de/serialization of
-     * fields from the database.
+     * fields from the database, for entities without a {@link DBEntityCodec}.
      */
     private static final Gson gson = new Gson();
 
+    /**
+     * The {@link DBEntityCodec} for the entity (null if it has not any),
+     * looked up at the first deserialization.
+     */
+    private volatile DBEntityCodec<T> codec = null;
+
+    /**
+     * Flag set to true when {@link #codec} has been looked up.
+     */
+    private volatile boolean codecLookedUp = false;
+
     /**
      * Constructor.
      * See {@link DBEntityAdapter} for parameters description.
@@ -73,23 +92,40 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
                     EnvironmentVariables.FIREBASE_EMULATOR_REALTIME_DB_PORT);
         }
 
-        dbRef = db.getReference(
-                Objects.requireNonNull(
+        dbRef = db.getReference(getTableName(entityClass));
+
+        assert tableListener != null;
+        this.firebaseRTDBSynchronizer =
+                new FirebaseRTDBSynchronizer(dbRef, EnvironmentVariables.DB_SYNCHRONIZATION_PERIOD_MILLIS);
+    }
+
+    /**
+     * @param entityClass The {@link Class} for the entity.
+     * @return the name of the table in the database for the given entity.
+     */
+    @NonNull
+    private static String getTableName(@NonNull Class<? extends DBEntity> entityClass) {
+        return Objects.requireNonNull(
                         Objects.requireNonNull(entityClass)
                                 .getCanonicalName())
-                        .replaceAll("\\.",
-                                "_"));
+                .replaceAll("\\.",
+                        "_");
+    }
 
-        assert tableListener != null;
-        this.firebaseRTDBSynchronizer = new FirebaseRTDBSynchronizer(dbRef);
+    @NonNull
+    @Override
+    public String allocateKey(@NonNull DBEntity newTuple) {
+        // Push keys are generated on the client (no round trip is needed)
+        String newTupleId = Objects.requireNonNull(dbRef.push().getKey());
+        Objects.requireNonNull(newTuple).setId(newTupleId);
+        return newTupleId;
     }
 
     @Override
     public void push(DBEntity newTuple, Runnable onSuccess, Runnable onError) {
         Log.d(TAG, "push method execution started");
 
-        String newTupleId = Objects.requireNonNull(dbRef.push().getKey());
-        newTuple.setId(newTupleId);
+        String newTupleId = allocateKey(newTuple);
         dbRef.child(newTupleId)
                 .setValue(newTuple)     // create a new tuple with the content
                 .addOnCompleteListener(task -> {
@@ -108,14 +144,53 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
         Log.d(TAG, "push method execution terminated");
     }
 
+    /**
+     * Atomically pushes the given tuples (possibly of different entities) with
+     * a single multi-path update of the database: either all of them are written
+     * or none. The keys of the tuples must have already been
+     * {@link #allocateKey(DBEntity) allocated}.
+     *
+     * @param newTuples The new tuples to be added.
+     * @param onSuccess The {@link Runnable} to be run if the new tuples are
+     *                  successfully added to the database.
+     * @param onError   The {@link Runnable} to be run in case of error.
+     */
+    public static void pushAtomically(@NonNull List<DBEntity> newTuples,
+                                      @Nullable Runnable onSuccess, @Nullable Runnable onError) {
+        Log.d(TAG, "pushAtomically method execution started");
+
+        Map<String, Object> updates = new LinkedHashMap<>(Objects.requireNonNull(newTuples).size());
+        for (DBEntity newTuple : newTuples) {
+            updates.put(
+                    getTableName(newTuple.getClass()) + "/" + Objects.requireNonNull(newTuple.getId()),
+                    newTuple);
+        }
+        FirebaseDatabase.getInstance().getReference()
+                .updateChildren(updates)    // one write for all the tuples
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        Log.d(TAG, "pushAtomically successfully completed for " + updates.size() + " tuples");
+                        if (onSuccess != null) {
+                            onSuccess.run();
+                        }
+                    } else {
+                        Log.e(TAG, "error with pushAtomically", task.getException());
+                        if (onError != null) {
+                            onError.run();
+                        }
+                    }
+                });
+        Log.d(TAG, "pushAtomically method execution terminated");
+    }
+
     @Override
     public void pull(@NonNull Consumer<List<T>> onSuccess, @Nullable Runnable onError) {
         Log.d(TAG, "pull method execution started");
 
-        new Thread(() -> {
+        Dispatchers.io().execute(() -> {
             ValueEventListener querySingleValueEventListener = getSingleValueEventListenerForQuery(onSuccess, onError);
             dbRef.addListenerForSingleValueEvent(querySingleValueEventListener);
-        }).start();
+        });
 
         Log.d(TAG, "pull method execution terminated");
     }
@@ -129,7 +204,7 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
         return new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                new Thread(() -> {
+                Dispatchers.cpu().execute(() -> {
 
                     Map<String, Object> content = (Map<String, Object>) snapshot.getValue();
                     if (content == null) {
@@ -149,17 +224,17 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
                     List<T> results = new LinkedList<>(deserializedContent.values());
                     Objects.requireNonNull(onSuccess).accept(results);
 
-                }).start();
+                });
 
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                new Thread(() -> {
+                Dispatchers.io().execute(() -> {
                     if (onError != null) {
                         onError.run();
                     }
-                }).start();
+                });
             }
         };
     }
@@ -167,7 +242,9 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
     /**
      * The database returns a {@link java.util.HashMap} in the
      * form key-value for each entity (they are saved in JSON
-     * format). This method deserialize one entity.
+     * format). This method deserialize one entity, with the
+     * {@link DBEntityCodec} of the entity, if it has one (otherwise,
+     * or if the codec fails, the tuple is deserialized via JSON).
      *
      * @param aTuple <strong>one</strong> entity retrieved from
      *               Firebase RTDB, represented as a {@link Map}
@@ -175,15 +252,47 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
      * @return The deserialized entity.
      */
     private T deserializeEntityFromFirebaseRTDB(Map<String, Object> aTuple) {
+        DBEntityCodec<T> entityCodec = getCodec();
+        if (entityCodec != null) {
+            try {
+                return entityCodec.decode(aTuple);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to decode tuple with codec, falling back to JSON", e);
+            }
+        }
         String json = gson.toJson(aTuple);
         return gson.fromJson(json, (Type) getDbEntityClass());
     }
 
+    /**
+     * Like {@link #deserializeEntityFromFirebaseRTDB(Map)}, but for a {@link DataSnapshot}
+     * of <strong>one</strong> entity.
+     *
+     * @return The deserialized entity, or null if the snapshot has not any value.
+     */
+    @Nullable
+    private T deserializeEntityFromFirebaseRTDB(@NonNull DataSnapshot snapshot) {
+        Map<String, Object> aTuple = (Map<String, Object>) snapshot.getValue();
+        return aTuple == null ? null : deserializeEntityFromFirebaseRTDB(aTuple);
+    }
+
+    /**
+     * @return the {@link DBEntityCodec} for the entity, or null if it has not any.
+     */
+    @Nullable
+    private DBEntityCodec<T> getCodec() {
+        if (!codecLookedUp) {
+            codec = DBEntityCodec.get(getDbEntityClass());
+            codecLookedUp = true;
+        }
+        return codec;
+    }
+
     @Override
     public <S> void pull(@NonNull Query<S> query, @NonNull Consumer<List<T>> onSuccess, @Nullable Runnable onError) {
         Log.d(TAG, "pull query method execution started");
 
-        new Thread(() -> {
+        Dispatchers.io().execute(() -> {
 
             S queryMinValue = Objects.requireNonNull(query).getMinValueInclusive();
             Class<S> fieldForQueryClass = (Class<S>) queryMinValue.getClass();
@@ -211,15 +320,18 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
             final int AMOUNT_OF_SECONDS_FOR_FAILURE_DETECTION = 60;
 
             AtomicBoolean queryExecutionCompleted = new AtomicBoolean(false);
-            Executors.newScheduledThreadPool(1).schedule(() -> {
-                synchronized (queryExecutionCompleted) {
-                    if (!queryExecutionCompleted.get() && onError != null) {
-                        onError.run();
-                        queryExecutionCompleted.set(true);
-                    }
-                }
-            }, AMOUNT_OF_SECONDS_FOR_FAILURE_DETECTION, TimeUnit.SECONDS);
+            ScheduledFuture<?> failureDetection = Dispatchers.scheduler().schedule(
+                    () -> Dispatchers.io().execute(() -> {
+                        synchronized (queryExecutionCompleted) {
+                            if (!queryExecutionCompleted.get() && onError != null) {
+                                onError.run();
+                                queryExecutionCompleted.set(true);
+                            }
+                        }
+                    }),
+                    AMOUNT_OF_SECONDS_FOR_FAILURE_DETECTION, TimeUnit.SECONDS);
             q.addListenerForSingleValueEvent(getSingleValueEventListenerForQuery(results -> {
+                failureDetection.cancel(false);
                 synchronized (queryExecutionCompleted) {
                     if (!queryExecutionCompleted.get()) {
                         queryExecutionCompleted.set(true);
@@ -228,50 +340,318 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
                 }
             }, onError));
 
-        }).start();
+        });
 
         Log.d(TAG, "pull query method execution terminated:" +
                 " it will asynchronously download the data for the query");
     }
 
     @Override
-    public void pull(@NonNull String key, @NonNull Consumer<T> onSuccess, @Nullable Runnable onError) {
+    public void pullPaged(int pageSize, @NonNull Predicate<List<T>> onPage, @Nullable Runnable onCompleted,
+                          @Nullable Runnable onError, @Nullable CancellationSignal cancellationSignal) {
+        Log.d(TAG, "pullPaged method execution started");
+        pullPages(
+                lastChildOfPreviousPage -> (lastChildOfPreviousPage == null
+                        ? dbRef.orderByKey()
+                        : dbRef.orderByKey().startAfter(lastChildOfPreviousPage.getKey()))
+                        .limitToFirst(pageSize),
+                pageSize, null, onPage, onCompleted, onError, cancellationSignal);
+    }
+
+    @Override
+    public <S> void pullPaged(@NonNull Query<S> query, int pageSize, @NonNull Predicate<List<T>> onPage,
+                              @Nullable Runnable onCompleted, @Nullable Runnable onError,
+                              @Nullable CancellationSignal cancellationSignal) {
+        Log.d(TAG, "pullPaged query method execution started");
+        final String fieldName = Objects.requireNonNull(query).getField().getName();
+        pullPages(
+                lastChildOfPreviousPage -> {
+                    com.google.firebase.database.Query q = dbRef.orderByChild(fieldName);
+                    q = lastChildOfPreviousPage == null
+                            ? startAt(q, query.getMinValueInclusive())
+                            : startAfter(q, lastChildOfPreviousPage.child(fieldName).getValue(), lastChildOfPreviousPage.getKey());
+                    return endAt(q, query.getMaxValueInclusive()).limitToFirst(pageSize);
+                },
+                pageSize, null, onPage, onCompleted, onError, cancellationSignal);
+    }
+
+    /**
+     * Retrieves the page following the given child (i.e., the last tuple of the previous page)
+     * and, if requested by the given {@link Predicate}, the subsequent pages.
+     * See {@link #pullPaged(int, Predicate, Runnable, Runnable, CancellationSignal)} for the
+     * description of the other parameters.
+     *
+     * @param pageQueryFactory        The {@link Function} creating the query for the page
+     *                                following the given child (null for the first page).
+     * @param lastChildOfPreviousPage The last child of the previous page, or null for the first page.
+     */
+    private void pullPages(@NonNull Function<DataSnapshot, com.google.firebase.database.Query> pageQueryFactory,
+                           int pageSize,
+                           @Nullable DataSnapshot lastChildOfPreviousPage,
+                           @NonNull Predicate<List<T>> onPage,
+                           @Nullable Runnable onCompleted,
+                           @Nullable Runnable onError,
+                           @Nullable CancellationSignal cancellationSignal) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be positive, found " + pageSize);
+        }
+        Objects.requireNonNull(onPage);
+        if (isCanceled(cancellationSignal)) {
+            return;
+        }
+
+        final com.google.firebase.database.Query pageQuery = pageQueryFactory.apply(lastChildOfPreviousPage);
+        final ValueEventListener pageListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Dispatchers.cpu().execute(() -> {
+                    if (isCanceled(cancellationSignal)) {
+                        return;
+                    }
+
+                    List<T> page = new ArrayList<>((int) snapshot.getChildrenCount());
+                    DataSnapshot lastChild = null;
+                    for (DataSnapshot child : snapshot.getChildren()) {   // children are in the order of the query
+                        T entity = deserializeEntityFromFirebaseRTDB(child);
+                        if (entity != null) {
+                            page.add(entity);
+                        }
+                        lastChild = child;
+                    }
+                    Log.d(TAG, "pullPaged: " + page.size() + " elements retrieved");
+
+                    if (isCanceled(cancellationSignal)) {
+                        return;
+                    }
+                    boolean nextPageRequested = page.isEmpty() || onPage.test(page);
+                    if (!nextPageRequested) {
+                        Log.d(TAG, "pullPaged stopped by the consumer");
+                    } else if (lastChild == null || snapshot.getChildrenCount() < pageSize) {   // last page
+                        if (onCompleted != null) {
+                            onCompleted.run();
+                        }
+                    } else {
+                        pullPages(pageQueryFactory, pageSize, lastChild, onPage, onCompleted, onError, cancellationSignal);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Dispatchers.io().execute(() -> {
+                    Log.e(TAG, "Error: " + error);
+                    if (onError != null && !isCanceled(cancellationSignal)) {
+                        onError.run();
+                    }
+                });
+            }
+        };
+
+        pageQuery.addListenerForSingleValueEvent(pageListener);
+        if (cancellationSignal != null) {
+            // Replaces the listener for the previous page (already triggered)
+            cancellationSignal.setOnCancelListener(() -> pageQuery.removeEventListener(pageListener));
+        }
+    }
+
+    @NonNull
+    @Override
+    public <S> LiveQuery<T> observe(@NonNull Query<S> query, @NonNull Comparator<T> order,
+                                    @NonNull LiveQuery.Listener<T> listener) {
+        Log.d(TAG, "observe method execution started");
+        com.google.firebase.database.Query q = dbRef.orderByChild(Objects.requireNonNull(query).getField().getName());
+        q = endAt(startAt(q, query.getMinValueInclusive()), query.getMaxValueInclusive());
+        return new FirebaseRTDBLiveQuery(q, order, listener);
+    }
+
+    /**
+     * {@link LiveQuery} for Firebase RTDB: a {@link ChildEventListener} on the query
+     * reports the changes of the matching tuples, while a {@link ValueEventListener}
+     * detects the end of the initial results (value events are raised after the child
+     * events for the same data, which is downloaded only once for both listeners).
+     */
+    private class FirebaseRTDBLiveQuery extends LiveQuery<T> {
+
+        private final com.google.firebase.database.Query q;
+        private final ChildEventListener childEventListener;
+        private final ValueEventListener initialResultsListener;
+
+        FirebaseRTDBLiveQuery(@NonNull com.google.firebase.database.Query q,
+                              @NonNull Comparator<T> order, @NonNull LiveQuery.Listener<T> listener) {
+            super(order, listener);
+            this.q = q;
+            this.childEventListener = new ChildEventListener() {
+                @Override
+                public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                    execute(() -> {
+                        T entity = deserializeEntityFromFirebaseRTDB(snapshot);
+                        if (entity != null) {
+                            added(Objects.requireNonNull(snapshot.getKey()), entity);
+                        }
+                    });
+                }
+
+                @Override
+                public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                    execute(() -> {
+                        T entity = deserializeEntityFromFirebaseRTDB(snapshot);
+                        if (entity != null) {
+                            changed(Objects.requireNonNull(snapshot.getKey()), entity);
+                        }
+                    });
+                }
+
+                @Override
+                public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                    execute(() -> removed(Objects.requireNonNull(snapshot.getKey())));
+                }
+
+                @Override
+                public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                    // the order of the results is given by the comparator
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Live query cancelled: " + error);
+                    execute(FirebaseRTDBLiveQuery.this::failed);
+                }
+            };
+            this.initialResultsListener = new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    execute(FirebaseRTDBLiveQuery.this::initialized);
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    // reported by the ChildEventListener
+                }
+            };
+            q.addChildEventListener(childEventListener);
+            q.addListenerForSingleValueEvent(initialResultsListener);
+        }
+
+        @Override
+        protected void detach() {
+            q.removeEventListener(childEventListener);
+            q.removeEventListener(initialResultsListener);
+            Log.d(TAG, "Live query closed");
+        }
+    }
+
+    /**
+     * @return the given query, starting at the given value (inclusive).
+     */
+    @NonNull
+    private static com.google.firebase.database.Query startAt(
+            @NonNull com.google.firebase.database.Query q, @NonNull Object value) {
+        if (value instanceof String) {
+            return q.startAt((String) value);
+        } else if (value instanceof Number) {
+            return q.startAt(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            return q.startAt((Boolean) value);
+        } else {
+            throw new IllegalArgumentException("Invalid value for query: " + value);
+        }
+    }
+
+    /**
+     * @return the given query, starting after the child having the given value and key.
+     */
+    @NonNull
+    private static com.google.firebase.database.Query startAfter(
+            @NonNull com.google.firebase.database.Query q, @Nullable Object value, @Nullable String key) {
+        if (value instanceof String) {
+            return q.startAfter((String) value, key);
+        } else if (value instanceof Number) {
+            return q.startAfter(((Number) value).doubleValue(), key);
+        } else if (value instanceof Boolean) {
+            return q.startAfter((Boolean) value, key);
+        } else {
+            throw new IllegalArgumentException("Invalid value for query: " + value);
+        }
+    }
+
+    /**
+     * @return the given query, ending at the given value (inclusive).
+     */
+    @NonNull
+    private static com.google.firebase.database.Query endAt(
+            @NonNull com.google.firebase.database.Query q, @NonNull Object value) {
+        if (value instanceof String) {
+            return q.endAt((String) value);
+        } else if (value instanceof Number) {
+            return q.endAt(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            return q.endAt((Boolean) value);
+        } else {
+            throw new IllegalArgumentException("Invalid value for query: " + value);
+        }
+    }
+
+    @Override
+    public void pull(@NonNull String key, @NonNull Consumer<T> onSuccess, @Nullable Runnable onError,
+                     @Nullable CancellationSignal cancellationSignal) {
         Log.d(TAG, "pull method execution started");
 
         Runnable onErrorHandler = () -> {
-            if (onError != null) {
+            if (onError != null && !isCanceled(cancellationSignal)) {
                 onError.run();
             }
         };
 
-        dbRef.child(Objects.requireNonNull(key))
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        new Thread(() -> {
-                            Map<String, Object> entityRetrievedFromDB = (Map<String, Object>) snapshot.getValue(); // map representing the tuple, having field names as keys
-                            if (entityRetrievedFromDB != null) {
-                                Log.d(TAG, "Retrieved entity with key " + key);
-                                Objects.requireNonNull(onSuccess)
-                                        .accept(deserializeEntityFromFirebaseRTDB(entityRetrievedFromDB));
-                            } else {
-                                onErrorHandler.run();
-                            }
-                        }).start();
+        final DatabaseReference tupleRef = dbRef.child(Objects.requireNonNull(key));
+        final ValueEventListener tupleListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Dispatchers.cpu().execute(() -> {
+                    if (isCanceled(cancellationSignal)) {
+                        Log.d(TAG, "Decoding of entity with key " + key + " skipped: operation cancelled");
+                        return;
                     }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        new Thread(() -> {
-                            Log.e(TAG, "Error: " + error);
-                            onErrorHandler.run();
-                        }).start();
+                    Map<String, Object> entityRetrievedFromDB = (Map<String, Object>) snapshot.getValue(); // map representing the tuple, having field names as keys
+                    if (entityRetrievedFromDB != null) {
+                        Log.d(TAG, "Retrieved entity with key " + key);
+                        T entity = deserializeEntityFromFirebaseRTDB(entityRetrievedFromDB);
+                        if (!isCanceled(cancellationSignal)) {
+                            Objects.requireNonNull(onSuccess).accept(entity);
+                        }
+                    } else {
+                        onErrorHandler.run();
                     }
                 });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Dispatchers.io().execute(() -> {
+                    Log.e(TAG, "Error: " + error);
+                    onErrorHandler.run();
+                });
+            }
+        };
+
+        tupleRef.addListenerForSingleValueEvent(tupleListener);
+        if (cancellationSignal != null) {
+            // Invoked immediately if already cancelled; removing an already triggered listener has no effects
+            cancellationSignal.setOnCancelListener(() -> {
+                Log.d(TAG, "pull of entity with key " + key + " cancelled");
+                tupleRef.removeEventListener(tupleListener);
+            });
+        }
 
         Log.d(TAG, "pull method execution terminated");
     }
 
+    /**
+     * @return true if the given {@link CancellationSignal} is non-null and cancelled.
+     */
+    private static boolean isCanceled(@Nullable CancellationSignal cancellationSignal) {
+        return cancellationSignal != null && cancellationSignal.isCanceled();
+    }
+
     @Override
     public void observeDBChanges(
             Consumer<T> onCreated, Consumer<T> onRemoved, Consumer<T> onUpdated) {
@@ -283,7 +663,7 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
             @Override
             public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
                 if (snapshot.exists()) {
-                    T changedContent = snapshot.getValue(getDbEntityClass());
+                    T changedContent = deserializeEntityFromFirebaseRTDB(snapshot);
                     Log.i(TAG, "New tuple: " + changedContent);
                     onCreated.accept(changedContent);
                 }
@@ -293,7 +673,7 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
             @Override
             public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
                 if (snapshot.exists()) {
-                    T changedContent = snapshot.getValue(getDbEntityClass());
+                    T changedContent = deserializeEntityFromFirebaseRTDB(snapshot);
                     Log.i(TAG, "Updated tuple: " + changedContent);
                     onUpdated.accept(changedContent);
                 }
@@ -302,7 +682,7 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
             @Override
             public void onChildRemoved(@NonNull DataSnapshot snapshot) {
                 if (snapshot.exists()) {
-                    T changedContent = snapshot.getValue(getDbEntityClass());
+                    T changedContent = deserializeEntityFromFirebaseRTDB(snapshot);
                     Log.i(TAG, "Removed tuple: " + changedContent);
                     onRemoved.accept(changedContent);
                 }
@@ -311,7 +691,7 @@ public class FirebaseRTDBEntityAdapter<T extends DBEntity> extends DBEntityAdapt
             @Override
             public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
                 if (snapshot.exists()) {
-                    T changedContent = snapshot.getValue(getDbEntityClass());
+                    T changedContent = deserializeEntityFromFirebaseRTDB(snapshot);
                     Log.i(TAG, "Moved tuple: " + changedContent);
                 }
             }
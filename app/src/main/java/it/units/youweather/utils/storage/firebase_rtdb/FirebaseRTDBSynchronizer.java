@@ -6,46 +6,45 @@ import androidx.annotation.NonNull;
 
 import com.google.firebase.database.DatabaseReference;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import it.units.youweather.utils.Dispatchers;
 import it.units.youweather.utils.Timing;
 import it.units.youweather.utils.storage.DBEntity;
 
 /**
  * Registers the instances to be synchronized with the real time database.
- * This class defines a {@link Thread} that periodically check for changes
- * in any of the registered instances, and if any change happened, they are
- * reported into the real time database.
- * Changes are detected according to the hash of the object obtained from
- * {@link DBEntity#hashCode()}, this means that, if the method is not
- * correctly implemented, changes might be not detected.
+ * This class defines a task that periodically takes the fields changed
+ * in any of the registered instances (see {@link DBEntity#markChanged(String, Object)})
+ * and, if any field changed, writes only the changed fields into the real time
+ * database, with a single update for all the instances.
+ * Changes are tracked explicitly by the instances, this means that, if an
+ * instance does not record a change, the change is not detected.
  *
  * @author Matteo Ferfoglia
  */
 class FirebaseRTDBSynchronizer {
 
-    /**
-     * The period at which the task synchronize local changes with the database.
-     */
-    final int SCHEDULING_PERIOD_IN_MILLIS = 600_000; // 10 minutes
-
     /**
      * The TAG for the logger.
      */
     private final String TAG = FirebaseRTDBSynchronizer.class.getSimpleName();
 
     /**
-     * Saves all the registered entities in a {@link Map}, having the entity
-     * as key and its has as value.
+     * Saves all the registered entities (compared by identity, so
+     * entities are never hashed).
      */
-    private final Map<DBEntity, Integer> registeredEntities =
-            new LinkedHashMap<>();
+    private final Set<DBEntity> registeredEntities =
+            Collections.newSetFromMap(new IdentityHashMap<>());
 
     /**
      * The {@link ScheduledFuture} to use for cancel the periodic task of this class.
@@ -60,18 +59,20 @@ class FirebaseRTDBSynchronizer {
     /**
      * Constructor.
      *
-     * @param dbRef The {@link DatabaseReference} with wich the synchronization must be done.
+     * @param dbRef               The {@link DatabaseReference} with wich the synchronization must be done.
+     * @param flushPeriodInMillis The period (milliseconds) at which the changes are written to the database.
      */
-    FirebaseRTDBSynchronizer(DatabaseReference dbRef) {
+    FirebaseRTDBSynchronizer(DatabaseReference dbRef, long flushPeriodInMillis) {
 
         this.dbRef = Objects.requireNonNull(dbRef);
+        if (flushPeriodInMillis <= 0) {
+            throw new IllegalArgumentException("Invalid flush period: " + flushPeriodInMillis);
+        }
 
-        // Create the scheduler that will periodically check for changes
-        final ScheduledExecutorService scheduler =
-                Executors.newScheduledThreadPool(1);
-        completion = scheduler.scheduleAtFixedRate(
-                this::synchronizeWithRealTimeDB,
-                SCHEDULING_PERIOD_IN_MILLIS, SCHEDULING_PERIOD_IN_MILLIS, TimeUnit.MILLISECONDS);
+        // Periodically check for changes (the check is performed by the CPU executor, not by the scheduler)
+        completion = Dispatchers.scheduler().scheduleAtFixedRate(
+                () -> Dispatchers.cpu().execute(this::synchronizeWithRealTimeDB),
+                flushPeriodInMillis, flushPeriodInMillis, TimeUnit.MILLISECONDS);
 
         Log.i(TAG, "Created");
     }
@@ -83,7 +84,7 @@ class FirebaseRTDBSynchronizer {
      */
     void observeNewEntity(DBEntity newEntity) {
         synchronized (registeredEntities) {
-            registeredEntities.put(Objects.requireNonNull(newEntity), newEntity.hashCode());
+            registeredEntities.add(Objects.requireNonNull(newEntity));
         }
         Log.v(TAG, "Observing new entity: " + newEntity);
     }
@@ -107,23 +108,32 @@ class FirebaseRTDBSynchronizer {
      */
     void synchronizeWithRealTimeDB() {
         Log.v(TAG, "Starting synchronization at " + Timing.getCurrentLocaleDateTime());
-        for (Map.Entry<DBEntity, Integer> entityAndItsHash : registeredEntities.entrySet()) {
-            synchronized (registeredEntities) {
-                DBEntity entity = entityAndItsHash.getKey();
-                int currentHash = entity.hashCode();
-                if (entityAndItsHash.getValue() != currentHash) {
-                    dbRef.child(entity.getId()).setValue(entity)
-                            .addOnCompleteListener(task -> {
-                                if (task.isSuccessful()) {
-                                    Log.i(TAG, "Update DB with entity " + entity);
-                                } else {
-                                    Log.e(TAG, "Error while trying to update DB with entity "
-                                            + entity, task.getException());
-                                }
-                            });
-                    entityAndItsHash.setValue(currentHash);
-                }
+        final List<DBEntity> entities;
+        synchronized (registeredEntities) {
+            entities = new ArrayList<>(registeredEntities);
+        }
+        Map<String, Object> updates = new LinkedHashMap<>();    // paths relative to dbRef as keys
+        for (DBEntity entity : entities) {
+            String id = entity.getId();
+            if (id == null) {
+                continue;   // changes are kept until the identifier is assigned
             }
+            for (Map.Entry<String, Object> changedField : entity.takeChangedFields().entrySet()) {
+                updates.put(id + "/" + changedField.getKey(), changedField.getValue());
+            }
+        }
+        if (!updates.isEmpty()) {
+            // Failed writes are not retried: the database client already retries
+            // while offline, so failures are due to the server (e.g., permissions)
+            dbRef.updateChildren(updates)
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful()) {
+                            Log.i(TAG, "Update DB with changed fields " + updates.keySet());
+                        } else {
+                            Log.e(TAG, "Error while trying to update DB with changed fields "
+                                    + updates.keySet(), task.getException());
+                        }
+                    });
         }
     }
 